@@ -0,0 +1,126 @@
+package com.launchdarkly.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_1;
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_2;
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_N;
+import static com.launchdarkly.logging.BenchmarkValues.MESSAGE;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_1;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_2;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_3;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_4;
+
+/**
+ * The common set of measurements for each adapter. Subclasses provide two adapters: one that
+ * has {@link LDLogLevel#DEBUG} enabled, and one that has it disabled, so we can see both the
+ * cost of producing output and the cost of a call that should do nothing.
+ * <p>
+ * The "contended" benchmarks run the same call on 8 threads at once, to show whether an
+ * adapter stops scaling because of locking.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class AdapterBenchmarks {
+  static final String ENABLED_LOGGER_NAME = "bench.enabled";
+  static final String DISABLED_LOGGER_NAME = "bench.disabled";
+
+  LDLogger enabledLogger;
+  LDLogger disabledLogger;
+
+  abstract LDLogAdapter makeAdapter();
+
+  @Setup
+  public void setUp() {
+    LDLogAdapter adapter = makeAdapter();
+    enabledLogger = LDLogger.withAdapter(adapter, ENABLED_LOGGER_NAME);
+    disabledLogger = LDLogger.withAdapter(adapter, DISABLED_LOGGER_NAME);
+  }
+
+  /**
+   * Subclasses can use this to disable DEBUG for {@link #DISABLED_LOGGER_NAME} only, when the
+   * adapter doesn't have its own per-logger configuration.
+   */
+  static LDLogAdapter debugDisabledFor(final String disabledName, final LDLogAdapter adapter) {
+    final LDLogAdapter filtered = Logs.level(adapter, LDLogLevel.INFO);
+    return new LDLogAdapter() {
+      @Override
+      public Channel newChannel(String name) {
+        return name.equals(disabledName) ? filtered.newChannel(name) : adapter.newChannel(name);
+      }
+    };
+  }
+
+  @Benchmark
+  public boolean disabledIsEnabled() {
+    return disabledLogger.isEnabled(LDLogLevel.DEBUG);
+  }
+
+  @Benchmark
+  public void disabledNoParams() {
+    disabledLogger.debug(MESSAGE);
+  }
+
+  @Benchmark
+  public void disabledOneParam() {
+    disabledLogger.debug(FORMAT_1, PARAM_1);
+  }
+
+  @Benchmark
+  public void disabledTwoParams() {
+    disabledLogger.debug(FORMAT_2, PARAM_1, PARAM_2);
+  }
+
+  @Benchmark
+  public void disabledFourParams() {
+    disabledLogger.debug(FORMAT_N, PARAM_1, PARAM_2, PARAM_3, PARAM_4);
+  }
+
+  @Benchmark
+  public void enabledNoParams() {
+    enabledLogger.debug(MESSAGE);
+  }
+
+  @Benchmark
+  public void enabledOneParam() {
+    enabledLogger.debug(FORMAT_1, PARAM_1);
+  }
+
+  @Benchmark
+  public void enabledTwoParams() {
+    enabledLogger.debug(FORMAT_2, PARAM_1, PARAM_2);
+  }
+
+  @Benchmark
+  public void enabledFourParams() {
+    enabledLogger.debug(FORMAT_N, PARAM_1, PARAM_2, PARAM_3, PARAM_4);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void disabledTwoParamsContended() {
+    disabledLogger.debug(FORMAT_2, PARAM_1, PARAM_2);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void enabledTwoParamsContended() {
+    enabledLogger.debug(FORMAT_2, PARAM_1, PARAM_2);
+  }
+}
@@ -0,0 +1,92 @@
+package com.launchdarkly.logging;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Shared inputs for the benchmarks, so that all adapters are measured with the same messages.
+ * <p>
+ * The parameters are pre-allocated objects, so a benchmark that allocates anything per call is
+ * allocating because of the code being measured, not because of boxing in the benchmark itself.
+ */
+final class BenchmarkValues {
+  private BenchmarkValues() {}
+
+  static final String MESSAGE = "a message with no parameters";
+  static final String FORMAT_1 = "a message with one parameter: {}";
+  static final String FORMAT_2 = "a message with two parameters: {} and {}";
+  static final String FORMAT_N = "a message with four parameters: {}, {}, {}, {}";
+  static final String FORMAT_ESCAPED = "a message with \\{} an escaped placeholder and one real one: {}";
+
+  static final Object PARAM_1 = "first";
+  static final Object PARAM_2 = Integer.valueOf(1234);
+  static final Object PARAM_3 = Boolean.TRUE;
+  static final Object PARAM_4 = "fourth";
+
+  static final SimpleLogging.LineWriter DISCARD_LINES = new SimpleLogging.LineWriter() {
+    @Override
+    public void writeLine(String line) {}
+  };
+
+  /**
+   * An adapter whose channels accept every level and do nothing except retain the last format
+   * string, so that benchmarks of decorators like {@link LevelFilter} measure only the decorator.
+   */
+  static final LDLogAdapter SINK = new LDLogAdapter() {
+    @Override
+    public Channel newChannel(String name) {
+      return new SinkChannel();
+    }
+  };
+
+  static final class SinkChannel implements LDLogAdapter.Channel {
+    volatile Object last;
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return true;
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      last = message;
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      last = format;
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      last = format;
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      last = format;
+    }
+  }
+
+  /**
+   * A {@code java.util.logging} handler that formats each record, like a real handler would,
+   * but does not write it anywhere.
+   */
+  static final class DiscardingHandler extends Handler {
+    volatile int lastLength;
+
+    @Override
+    public void publish(LogRecord record) {
+      if (isLoggable(record)) {
+        lastLength = getFormatter() == null ? record.getMessage().length() :
+          getFormatter().formatMessage(record).length();
+      }
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+}
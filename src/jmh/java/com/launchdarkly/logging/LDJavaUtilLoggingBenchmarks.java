@@ -0,0 +1,35 @@
+package com.launchdarkly.logging;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Measures the {@code java.util.logging} adapter. Both loggers send their output to a handler
+ * that formats each record and then discards it; DEBUG (FINE) is enabled only for
+ * {@link #ENABLED_LOGGER_NAME}.
+ */
+public class LDJavaUtilLoggingBenchmarks extends AdapterBenchmarks {
+  // java.util.logging only keeps weak references to loggers, so we hold on to these to keep
+  // their configuration from being lost.
+  private static Logger enabledJulLogger;
+  private static Logger disabledJulLogger;
+
+  @Override
+  LDLogAdapter makeAdapter() {
+    BenchmarkValues.DiscardingHandler handler = new BenchmarkValues.DiscardingHandler();
+    handler.setFormatter(new SimpleFormatter());
+    handler.setLevel(Level.ALL);
+    enabledJulLogger = configure(ENABLED_LOGGER_NAME, Level.FINE, handler);
+    disabledJulLogger = configure(DISABLED_LOGGER_NAME, Level.INFO, handler);
+    return Logs.toJavaUtilLogging();
+  }
+
+  private static Logger configure(String name, Level level, BenchmarkValues.DiscardingHandler handler) {
+    Logger logger = Logger.getLogger(name);
+    logger.setLevel(level);
+    logger.setUseParentHandlers(false);
+    logger.addHandler(handler);
+    return logger;
+  }
+}
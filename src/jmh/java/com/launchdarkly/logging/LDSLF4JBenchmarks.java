@@ -0,0 +1,28 @@
+package com.launchdarkly.logging;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures {@link LDSLF4J} with the {@code slf4j-simple} backend writing to a temporary file.
+ * DEBUG is enabled for {@link #ENABLED_LOGGER_NAME} and disabled for everything else through
+ * the backend's own configuration properties, which must be set before SLF4J initializes.
+ */
+public class LDSLF4JBenchmarks extends AdapterBenchmarks {
+  static {
+    try {
+      File logFile = File.createTempFile("ldslf4j-bench", ".log");
+      logFile.deleteOnExit();
+      System.setProperty("org.slf4j.simpleLogger.logFile", logFile.getAbsolutePath());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "info");
+    System.setProperty("org.slf4j.simpleLogger.log." + ENABLED_LOGGER_NAME, "debug");
+  }
+
+  @Override
+  LDLogAdapter makeAdapter() {
+    return LDSLF4J.adapter();
+  }
+}
@@ -0,0 +1,19 @@
+package com.launchdarkly.logging;
+
+/**
+ * Measures {@link LevelFilter} in front of an adapter that does nothing, so the results show
+ * only the cost of the filter itself.
+ */
+public class LevelFilterBenchmarks extends AdapterBenchmarks {
+  @Override
+  LDLogAdapter makeAdapter() {
+    final LDLogAdapter enabled = Logs.level(BenchmarkValues.SINK, LDLogLevel.DEBUG);
+    final LDLogAdapter disabled = Logs.level(BenchmarkValues.SINK, LDLogLevel.INFO);
+    return new LDLogAdapter() {
+      @Override
+      public Channel newChannel(String name) {
+        return name.equals(DISABLED_LOGGER_NAME) ? disabled.newChannel(name) : enabled.newChannel(name);
+      }
+    };
+  }
+}
@@ -0,0 +1,74 @@
+package com.launchdarkly.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_N;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_1;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_2;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_3;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_4;
+
+/**
+ * Compares a DEBUG call that is disabled by the adapter with one that is disabled by
+ * {@link LDLogger#MINIMUM_LEVEL_PROPERTY}.
+ * <p>
+ * The "elided" benchmarks run in a JVM where the property is set to INFO, while the adapter
+ * itself allows DEBUG. If the JIT compiler removes those calls completely, their time is the
+ * same as {@link #baseline()}, and "gc.alloc.rate.norm" shows that the varargs array is not
+ * allocated. The "adapterDisabled" benchmarks show what the same calls cost when only the
+ * adapter filters them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MinimumLevelBenchmarks {
+  LDLogger adapterDisabledLogger;
+  LDLogger debugLogger;
+
+  @Setup
+  public void setUp() {
+    adapterDisabledLogger = LDLogger.withAdapter(Logs.level(BenchmarkValues.SINK, LDLogLevel.INFO), "bench");
+    debugLogger = LDLogger.withAdapter(BenchmarkValues.SINK, "bench");
+  }
+
+  @Benchmark
+  public void baseline() {
+    // an empty method, for comparison with calls that should compile to nothing
+  }
+
+  @Benchmark
+  public boolean adapterDisabledIsEnabled() {
+    return adapterDisabledLogger.isEnabled(LDLogLevel.DEBUG);
+  }
+
+  @Benchmark
+  public void adapterDisabledFourParams() {
+    adapterDisabledLogger.debug(FORMAT_N, PARAM_1, PARAM_2, PARAM_3, PARAM_4);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-D" + LDLogger.MINIMUM_LEVEL_PROPERTY + "=info")
+  public boolean elidedIsEnabled() {
+    return debugLogger.isEnabled(LDLogLevel.DEBUG);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-D" + LDLogger.MINIMUM_LEVEL_PROPERTY + "=info")
+  public void elidedFourParams() {
+    debugLogger.debug(FORMAT_N, PARAM_1, PARAM_2, PARAM_3, PARAM_4);
+  }
+}
@@ -0,0 +1,16 @@
+package com.launchdarkly.logging;
+
+/**
+ * Measures {@link MultiLogging} with three destinations that do nothing. For the disabled
+ * logger, all three destinations have DEBUG disabled.
+ */
+public class MultiLoggingBenchmarks extends AdapterBenchmarks {
+  @Override
+  LDLogAdapter makeAdapter() {
+    return Logs.toMultiple(
+        debugDisabledFor(DISABLED_LOGGER_NAME, BenchmarkValues.SINK),
+        debugDisabledFor(DISABLED_LOGGER_NAME, BenchmarkValues.SINK),
+        debugDisabledFor(DISABLED_LOGGER_NAME, BenchmarkValues.SINK)
+        );
+  }
+}
@@ -0,0 +1,12 @@
+package com.launchdarkly.logging;
+
+/**
+ * Measures {@link NullLogging}. Both loggers have every level disabled, so the "enabled"
+ * results are just a second measurement of the same no-op path.
+ */
+public class NullLoggingBenchmarks extends AdapterBenchmarks {
+  @Override
+  LDLogAdapter makeAdapter() {
+    return Logs.none();
+  }
+}
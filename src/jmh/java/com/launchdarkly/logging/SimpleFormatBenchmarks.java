@@ -0,0 +1,53 @@
+package com.launchdarkly.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_1;
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_2;
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_ESCAPED;
+import static com.launchdarkly.logging.BenchmarkValues.FORMAT_N;
+import static com.launchdarkly.logging.BenchmarkValues.MESSAGE;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_1;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_2;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_3;
+import static com.launchdarkly.logging.BenchmarkValues.PARAM_4;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleFormatBenchmarks {
+  @Benchmark
+  public String noPlaceholders() {
+    return SimpleFormat.format(MESSAGE, PARAM_1);
+  }
+
+  @Benchmark
+  public String oneParam() {
+    return SimpleFormat.format(FORMAT_1, PARAM_1);
+  }
+
+  @Benchmark
+  public String twoParams() {
+    return SimpleFormat.format(FORMAT_2, PARAM_1, PARAM_2);
+  }
+
+  @Benchmark
+  public String fourParams() {
+    return SimpleFormat.format(FORMAT_N, PARAM_1, PARAM_2, PARAM_3, PARAM_4);
+  }
+
+  @Benchmark
+  public String escapedPlaceholder() {
+    return SimpleFormat.format(FORMAT_ESCAPED, PARAM_1);
+  }
+}
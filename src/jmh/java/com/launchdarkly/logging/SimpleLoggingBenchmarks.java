@@ -0,0 +1,35 @@
+package com.launchdarkly.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+import static com.launchdarkly.logging.BenchmarkValues.DISCARD_LINES;
+
+/**
+ * Measures {@link SimpleLogging} with a line writer that discards its input, so the results
+ * show the cost of building each line, including the timestamp if there is one.
+ */
+public class SimpleLoggingBenchmarks extends AdapterBenchmarks {
+  @Param({ "true", "false" })
+  public boolean timestamps;
+
+  @Override
+  LDLogAdapter makeAdapter() {
+    SimpleLogging adapter = Logs.toMethod(DISCARD_LINES);
+    if (!timestamps) {
+      adapter = adapter.timestampFormat(null);
+    }
+    return debugDisabledFor(DISABLED_LOGGER_NAME, adapter);
+  }
+
+  private final DateFormat timestampFormat = SimpleLogging.getDefaultTimestampFormat();
+
+  // This is the same thing SimpleLogging does for each line when timestamps are enabled.
+  @Benchmark
+  public String timestampOnly() {
+    return ((DateFormat)timestampFormat.clone()).format(new Date());
+  }
+}
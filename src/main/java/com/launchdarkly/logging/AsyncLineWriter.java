@@ -0,0 +1,229 @@
+package com.launchdarkly.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * See {@link SimpleLogging#async(int)}.
+ * <p>
+ * Lines are queued in one of several stripes, chosen by a hash of the calling thread's ID, so
+ * that threads logging at the same time mostly use different queues and do not contend on one
+ * lock. A single daemon thread drains all of the stripes in turn. Since a thread always uses
+ * the same stripe and each stripe is first-in-first-out, lines from any one thread are written
+ * in the order they were logged. Lines from different threads are merged by the time at which
+ * they were queued, which approximates the order in which they were logged; the merge is a
+ * stable sort, so lines with equal times keep their order. Each batch of lines is passed to
+ * {@link SimpleLogging.LineWriter#writeLines(List)} in one call.
+ * <p>
+ * If a stripe is full, the line is dropped and counted. After the background thread has
+ * written the lines that were already queued, it writes a line saying how many were dropped.
+ * <p>
+ * {@link #flush(long)} and {@link #close()} are passed on to the wrapped writer, if it
+ * implements {@link LDLogAdapter.Lifecycle}, after the queue has been written.
+ */
+final class AsyncLineWriter implements SimpleLogging.LineWriter, LDLogAdapter.Lifecycle {
+  static final int MAX_DEFAULT_STRIPES = 256;
+  static final int MAX_STRIPES = 1024;
+  static final String DROPPED_MESSAGE_FORMAT = "[{} log messages were dropped because the log buffer was full]";
+
+  private static final int MAX_DRAIN_PER_STRIPE = 1024;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long FLUSH_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final int ACCEPTED = 0, DROPPED = 1;
+
+  private static final Comparator<Entry> BY_TIME = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry a, Entry b) {
+      long diff = a.nanoTime - b.nanoTime; // nanoTime values can only be compared this way
+      return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+    }
+  };
+
+  final SimpleLogging.LineWriter wrappedWriter; // exposed for testing
+  private final List<ArrayBlockingQueue<Entry>> stripes;
+  private final StripedCounters counters = new StripedCounters(2);
+  private final Thread consumer;
+  private volatile long written;
+  private volatile boolean consumerIdle;
+  private volatile boolean closed;
+  // Normally only the consumer thread drains the stripes, but after close() has started, other
+  // threads may also do so; see writeLine.
+  private final ReentrantLock drainLock = new ReentrantLock();
+  private final List<Entry> batch = new ArrayList<>(); // protected by drainLock
+  private long droppedReported; // protected by drainLock
+
+  AsyncLineWriter(SimpleLogging.LineWriter wrappedWriter, int bufferCapacity, int stripeCount) {
+    this.wrappedWriter = wrappedWriter;
+    int count = StripedCounters.powerOfTwoAtLeast(Math.min(stripeCount, MAX_STRIPES));
+    int capacityPerStripe = (int)Math.max(1, ((long)bufferCapacity + count - 1) / count);
+    this.stripes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      stripes.add(new ArrayBlockingQueue<Entry>(capacityPerStripe));
+    }
+    this.consumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        consume();
+      }
+    }, "LaunchDarkly-logging-async");
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  static int defaultStripeCount() {
+    return StripedCounters.stripeCount(MAX_DEFAULT_STRIPES);
+  }
+
+  int stripeCount() {
+    return stripes.size();
+  }
+
+  @Override
+  public void writeLine(String line) {
+    Entry entry = new Entry(System.nanoTime(), line);
+    if (stripes.get(StripedCounters.threadHash() & (stripes.size() - 1)).offer(entry)) {
+      counters.increment(ACCEPTED);
+    } else {
+      counters.increment(DROPPED);
+    }
+    // We check this only after the line is queued. If close() has started, the background
+    // thread may already have made its last pass, so we write the line on this thread;
+    // otherwise, the background thread's last pass is guaranteed to see the line.
+    if (closed) {
+      drainAll();
+    } else if (consumerIdle) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  // Waits until everything queued before this call has been written, and then flushes the
+  // wrapped writer with whatever time is left; returns false on timeout.
+  @Override
+  public boolean flush(long timeoutMillis) {
+    long target = counters.get(ACCEPTED);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    while (written < target) {
+      if (deadline - System.nanoTime() <= 0) {
+        return false;
+      }
+      LockSupport.unpark(consumer);
+      LockSupport.parkNanos(FLUSH_POLL_NANOS);
+    }
+    return !(wrappedWriter instanceof LDLogAdapter.Lifecycle) ||
+        ((LDLogAdapter.Lifecycle)wrappedWriter).flush(Logs.remainingMillis(deadline));
+  }
+
+  // Writes everything that is queued, stops the background thread, and closes the wrapped
+  // writer. Any lines that are logged afterward are written on the caller's thread.
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(consumer);
+    boolean interrupted = false;
+    while (consumer.isAlive()) {
+      try {
+        consumer.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (wrappedWriter instanceof LDLogAdapter.Lifecycle) {
+      ((LDLogAdapter.Lifecycle)wrappedWriter).close();
+    }
+  }
+
+  private void consume() {
+    for (;;) {
+      boolean wasClosed = closed;
+      if (drain() > 0) {
+        continue;
+      }
+      if (wasClosed) {
+        return;
+      }
+      consumerIdle = true;
+      if (isEmpty() && !closed) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+      consumerIdle = false;
+    }
+  }
+
+  // Writes one batch of queued lines, and reports any dropped lines; returns the number of
+  // lines written.
+  private int drain() {
+    drainLock.lock();
+    try {
+      // Lines are only dropped when a stripe is full, so lines that were dropped before we
+      // take the next batch came after the lines in that batch; report them afterward.
+      long dropped = counters.get(DROPPED);
+      for (ArrayBlockingQueue<Entry> stripe: stripes) {
+        stripe.drainTo(batch, MAX_DRAIN_PER_STRIPE);
+      }
+      int count = batch.size();
+      if (count > 0) {
+        writeBatch(batch);
+        written += count; // only updated while holding drainLock
+        batch.clear();
+      }
+      if (dropped > droppedReported) {
+        write(Collections.singletonList(SimpleFormat.format(DROPPED_MESSAGE_FORMAT, dropped - droppedReported)));
+        droppedReported = dropped;
+      }
+      return count;
+    } finally {
+      drainLock.unlock();
+    }
+  }
+
+  private void drainAll() {
+    while (drain() > 0) {
+      // keep going until the stripes are empty
+    }
+  }
+
+  private boolean isEmpty() {
+    for (ArrayBlockingQueue<Entry> stripe: stripes) {
+      if (!stripe.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeBatch(List<Entry> batch) {
+    Collections.sort(batch, BY_TIME);
+    List<String> lines = new ArrayList<>(batch.size());
+    for (Entry e: batch) {
+      lines.add(e.line);
+    }
+    write(lines);
+  }
+
+  private void write(List<String> lines) {
+    try {
+      wrappedWriter.writeLines(lines);
+    } catch (RuntimeException e) {
+      // There is nowhere else to report this; the background thread must keep running.
+    }
+  }
+
+  private static final class Entry {
+    final long nanoTime;
+    final String line;
+
+    Entry(long nanoTime, String line) {
+      this.nanoTime = nanoTime;
+      this.line = line;
+    }
+  }
+}
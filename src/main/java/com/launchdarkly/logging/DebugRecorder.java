@@ -0,0 +1,256 @@
+package com.launchdarkly.logging;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * See {@link Logs#debugRecorder(LDLogAdapter, LDLogLevel, int)}.
+ * <p>
+ * Recorded events are stored in fixed-size slots of a direct {@code ByteBuffer}, so recording
+ * an event does not create any objects that outlive the call. Each slot holds the level and up
+ * to {@link #MAX_CHARS} characters of message text; longer messages are truncated. The channel
+ * that produced the event is kept in a parallel array with one element per slot, so the
+ * recorder only refers to channels that have events waiting to be written. String parameters are copied
+ * character by character; other parameters are converted with {@code toString()}, which is
+ * the only allocation on the recording path.
+ */
+final class DebugRecorder implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  static final int SLOT_SIZE = 512;
+  private static final int HEADER_SIZE = 4;
+  static final int MAX_CHARS = (SLOT_SIZE - HEADER_SIZE) / 2;
+
+  private static final int LEVEL_OFFSET = 0;
+  private static final int LENGTH_OFFSET = 2;
+
+  private static final LDLogLevel[] LEVELS = LDLogLevel.values();
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final LDLogLevel minimumLevel;
+  private final int capacity;
+  private final ByteBuffer buffer;
+  private final Channel[] slotChannels; // guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private long nextSequence; // guarded by lock
+  private long firstSequence; // guarded by lock
+
+  DebugRecorder(LDLogAdapter wrappedAdapter, LDLogLevel minimumLevel, int capacity) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.minimumLevel = minimumLevel == null ? LDLogLevel.WARN : minimumLevel;
+    this.capacity = capacity < 1 ? 1 : capacity;
+    this.buffer = ByteBuffer.allocateDirect(this.capacity * SLOT_SIZE);
+    this.slotChannels = new Channel[this.capacity];
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(wrappedAdapter.newChannel(name));
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  private boolean isRecorded(LDLogLevel level) {
+    return level.compareTo(minimumLevel) < 0 && level.compareTo(LDLogLevel.ERROR) < 0;
+  }
+
+  private void dump() {
+    List<RecordedEvent> events = new ArrayList<>();
+    lock.lock();
+    try {
+      for (long seq = firstSequence; seq < nextSequence; seq++) {
+        int slot = (int)(seq % capacity);
+        int base = slot * SLOT_SIZE;
+        int length = buffer.getShort(base + LENGTH_OFFSET);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+          chars[i] = buffer.getChar(base + HEADER_SIZE + i * 2);
+        }
+        events.add(new RecordedEvent(
+            slotChannels[slot],
+            LEVELS[buffer.get(base + LEVEL_OFFSET)],
+            new String(chars)
+            ));
+        slotChannels[slot] = null;
+      }
+      firstSequence = nextSequence;
+    } finally {
+      lock.unlock();
+    }
+    for (RecordedEvent e: events) {
+      e.channel.log(e.level, e.text);
+    }
+  }
+
+  private static final class RecordedEvent {
+    final Channel channel;
+    final LDLogLevel level;
+    final String text;
+
+    RecordedEvent(Channel channel, LDLogLevel level, String text) {
+      this.channel = channel;
+      this.level = level;
+      this.text = text;
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+
+    ChannelImpl(Channel wrappedChannel) {
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (isRecorded(level)) {
+        if (isEnabled(level)) {
+          record(level, null, message, null, null, 1);
+        }
+        return;
+      }
+      if (level == LDLogLevel.ERROR) {
+        dump();
+      }
+      wrappedChannel.log(level, message);
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (isRecorded(level)) {
+        if (isEnabled(level)) {
+          record(level, format, param, null, null, 1);
+        }
+        return;
+      }
+      if (level == LDLogLevel.ERROR) {
+        dump();
+      }
+      wrappedChannel.log(level, format, param);
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (isRecorded(level)) {
+        if (isEnabled(level)) {
+          record(level, format, param1, param2, null, 2);
+        }
+        return;
+      }
+      if (level == LDLogLevel.ERROR) {
+        dump();
+      }
+      wrappedChannel.log(level, format, param1, param2);
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (isRecorded(level)) {
+        if (isEnabled(level)) {
+          record(level, format, null, null, params, params.length);
+        }
+        return;
+      }
+      if (level == LDLogLevel.ERROR) {
+        dump();
+      }
+      wrappedChannel.log(level, format, params);
+    }
+
+    // A recorded message includes the stacktrace in its text, as in the default implementation,
+    // since the buffer cannot hold the exception itself.
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isRecorded(level) || throwable == null) {
+        Channel.super.log(level, throwable, format, params);
+        return;
+      }
+      if (level == LDLogLevel.ERROR) {
+        dump();
+      }
+      wrappedChannel.log(level, throwable, format, params);
+    }
+
+    // If format is null, param1 is a simple message. Otherwise the parameters are param1 and
+    // param2, or the elements of params if it is non-null; this avoids allocating an array
+    // for the one- and two-parameter cases.
+    private void record(LDLogLevel level, String format, Object param1, Object param2,
+        Object[] params, int paramCount) {
+      lock.lock();
+      try {
+        long seq = nextSequence++;
+        if (nextSequence - firstSequence > capacity) {
+          firstSequence = nextSequence - capacity;
+        }
+        int slot = (int)(seq % capacity);
+        int base = slot * SLOT_SIZE;
+        slotChannels[slot] = wrappedChannel;
+        buffer.put(base + LEVEL_OFFSET, (byte)level.ordinal());
+        int length;
+        if (format == null) {
+          length = putValue(base, 0, param1);
+        } else {
+          length = putFormatted(base, format, param1, param2, params, paramCount);
+        }
+        buffer.putShort(base + LENGTH_OFFSET, (short)length);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // Same substitution rules as SimpleFormat, but writing directly into the slot.
+    private int putFormatted(int base, String format, Object param1, Object param2,
+        Object[] params, int paramCount) {
+      int length = 0;
+      int pos = 0;
+      int paramIndex = 0;
+      while (pos < format.length() && length < MAX_CHARS) {
+        int next = format.indexOf("{}", pos);
+        if (next < 0 || paramIndex >= paramCount) {
+          return putChars(base, length, format, pos, format.length());
+        }
+        if (next > 0 && format.charAt(next - 1) == '\\') {
+          length = putChars(base, length, format, pos, next - 1);
+          length = putChars(base, length, format, next, next + 2);
+          pos = next + 2;
+          continue;
+        }
+        length = putChars(base, length, format, pos, next);
+        Object param = params != null ? params[paramIndex] : (paramIndex == 0 ? param1 : param2);
+        length = putValue(base, length, param);
+        paramIndex++;
+        pos = next + 2;
+      }
+      return length;
+    }
+
+    private int putValue(int base, int length, Object value) {
+      if (value == null) {
+        return length;
+      }
+      CharSequence s = value instanceof CharSequence ? (CharSequence)value : value.toString();
+      return putChars(base, length, s, 0, s.length());
+    }
+
+    private int putChars(int base, int length, CharSequence s, int start, int end) {
+      int pos = base + HEADER_SIZE + length * 2;
+      for (int i = start; i < end && length < MAX_CHARS; i++, length++, pos += 2) {
+        buffer.putChar(pos, s.charAt(i));
+      }
+      return length;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.launchdarkly.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class DuplicateFilter implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  static final String REPEATED_MESSAGE_FORMAT = "[Message repeated {} times in the last {} ms: {}]";
+  static final int TABLE_SIZE = 1024; // must be a power of two
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final long windowNanos;
+  private final AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(TABLE_SIZE);
+
+  DuplicateFilter(LDLogAdapter wrappedAdapter, long windowMillis) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(name, wrappedAdapter.newChannel(name));
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    long now = System.nanoTime();
+    for (int i = 0; i < TABLE_SIZE; i++) {
+      Entry e = table.get(i);
+      if (e != null) {
+        e.writeSummary(now);
+      }
+    }
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  // Returns true if this is the first time the message has been seen within the window, in
+  // which case it should be logged; otherwise, counts it as a repeat. The message is
+  // identified by the format string instance rather than its contents, so that nothing has to
+  // be formatted or compared character by character. The table has a fixed size and each
+  // message has one slot, so a different message that hashes to the same slot replaces the
+  // earlier one; the only effect of that is that a repeat may be logged again.
+  boolean firstOccurrence(Channel channel, String name, LDLogLevel level, String format, long now) {
+    int h = System.identityHashCode(format) * 31 + name.hashCode();
+    h = h * 31 + level.ordinal();
+    h ^= (h >>> 16);
+    int index = h & (TABLE_SIZE - 1);
+    Entry e = table.get(index);
+    if (e != null && e.format == format && e.level == level && e.name.equals(name) &&
+        now - e.windowStart < windowNanos) {
+      e.repeats.incrementAndGet();
+      return false;
+    }
+    // Either there is no current entry for this message, or its window has ended. If another
+    // thread replaces the same slot at the same moment, both messages are logged.
+    if (table.compareAndSet(index, e, new Entry(channel, name, level, format, now)) && e != null) {
+      e.writeSummary(now);
+    }
+    return true;
+  }
+
+  private static final class Entry {
+    final Channel channel;
+    final String name;
+    final LDLogLevel level;
+    final String format;
+    final long windowStart;
+    final AtomicLong repeats = new AtomicLong();
+
+    Entry(Channel channel, String name, LDLogLevel level, String format, long windowStart) {
+      this.channel = channel;
+      this.name = name;
+      this.level = level;
+      this.format = format;
+      this.windowStart = windowStart;
+    }
+
+    // Repeats that are counted by other threads while this is running may not be reported.
+    void writeSummary(long now) {
+      long count = repeats.getAndSet(0);
+      if (count != 0) {
+        channel.log(level, REPEATED_MESSAGE_FORMAT, count,
+            TimeUnit.NANOSECONDS.toMillis(now - windowStart), format);
+      }
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final String name;
+    private final Channel wrappedChannel;
+
+    ChannelImpl(String name, Channel wrappedChannel) {
+      this.name = name;
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    private boolean allow(LDLogLevel level, String format) {
+      return wrappedChannel.isEnabled(level) &&
+          firstOccurrence(wrappedChannel, name, level, format, System.nanoTime());
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      // Only a string message can be a constant that identifies the call site; any other
+      // object is probably a new one each time, so it is passed through.
+      if (message instanceof String ? allow(level, (String)message) : wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, message);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (allow(level, format)) {
+        wrappedChannel.log(level, format, param);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (allow(level, format)) {
+        wrappedChannel.log(level, format, param1, param2);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (allow(level, format)) {
+        wrappedChannel.log(level, format, params);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (allow(level, format)) {
+        wrappedChannel.log(level, throwable, format, params);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.launchdarkly.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ErrorEscalation implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  // Keeps the time arithmetic well away from overflowing; System.nanoTime() values can only be
+  // compared by their difference.
+  static final long MAX_DURATION_NANOS = TimeUnit.DAYS.toNanos(365);
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final LDLogLevel minimumLevel;
+  private final long durationNanos;
+  private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+  // The latest time that any logger is escalated until, so that when nothing is escalated,
+  // isEnabled does not have to look at the hierarchy at all.
+  private final AtomicLong anyEscalatedUntil;
+
+  ErrorEscalation(LDLogAdapter wrappedAdapter, LDLogLevel minimumLevel, long durationNanos) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.minimumLevel = minimumLevel == null ? LDLogLevel.DEBUG : minimumLevel;
+    this.durationNanos = Math.max(0, Math.min(MAX_DURATION_NANOS, durationNanos));
+    this.anyEscalatedUntil = new AtomicLong(System.nanoTime());
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(wrappedAdapter.newChannel(name), nodeFor(name));
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  // Each logger name has a node whose parent is the node for the name up to the last period,
+  // which is how LDLogger.subLogger builds names. The parent nodes are created even if there is
+  // no logger with that name, so that an escalation of "a" is seen by "a.b.c".
+  Node nodeFor(String name) {
+    Node node = nodes.get(name);
+    if (node == null) {
+      int lastDot = name.lastIndexOf('.');
+      Node newNode = new Node(lastDot < 0 ? null : nodeFor(name.substring(0, lastDot)));
+      node = nodes.putIfAbsent(name, newNode);
+      if (node == null) {
+        node = newNode;
+      }
+    }
+    return node;
+  }
+
+  void escalate(Node node, long now) {
+    long until = now + durationNanos;
+    node.escalatedUntil = until;
+    while (true) {
+      long any = anyEscalatedUntil.get();
+      if (until - any <= 0 || anyEscalatedUntil.compareAndSet(any, until)) {
+        return;
+      }
+    }
+  }
+
+  boolean isEscalated(Node node, long now) {
+    if (anyEscalatedUntil.get() - now <= 0) {
+      return false;
+    }
+    for (Node n = node; n != null; n = n.parent) {
+      if (n.escalatedUntil - now > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static final class Node {
+    final Node parent;
+    volatile long escalatedUntil;
+
+    Node(Node parent) {
+      this.parent = parent;
+      this.escalatedUntil = System.nanoTime();
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+    private final Node node;
+
+    ChannelImpl(Channel wrappedChannel, Node node) {
+      this.wrappedChannel = wrappedChannel;
+      this.node = node;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return (level.compareTo(minimumLevel) >= 0 || isEscalated(node, System.nanoTime())) &&
+          wrappedChannel.isEnabled(level);
+    }
+
+    private boolean allow(LDLogLevel level) {
+      if (level == LDLogLevel.ERROR) {
+        escalate(node, System.nanoTime());
+      }
+      return isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (allow(level)) {
+        wrappedChannel.log(level, message);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, param);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, param1, param2);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, params);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (allow(level)) {
+        wrappedChannel.log(level, throwable, format, params);
+      }
+    }
+  }
+}
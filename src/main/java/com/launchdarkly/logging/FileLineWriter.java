@@ -0,0 +1,97 @@
+package com.launchdarkly.logging;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * See {@link Logs#toFile(File)}.
+ * <p>
+ * A batch of lines is encoded into one byte array, which is written with a single call to
+ * {@link FileOutputStream#write(byte[])}. We do not use a {@code FileChannel}, because a
+ * channel is closed if a thread that is writing to it is interrupted, and then nothing more
+ * could be logged. The lock keeps batches from different threads from being interleaved.
+ * <p>
+ * After {@link #close()}, the writer can still be used, as {@link LDLogAdapter.Lifecycle}
+ * requires: each batch is appended by opening the file again and closing it afterward. This
+ * matters for {@link AsyncLineWriter}, which writes lines that are logged after it is closed
+ * on the caller's thread.
+ */
+final class FileLineWriter implements SimpleLogging.LineWriter, LDLogAdapter.Lifecycle {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF8);
+
+  final File file; // exposed for testing
+  private FileOutputStream stream; // protected by lock; null after close()
+  private final ReentrantLock lock = new ReentrantLock();
+
+  FileLineWriter(File file) throws IOException {
+    this.file = file;
+    this.stream = new FileOutputStream(file, true);
+  }
+
+  @Override
+  public void writeLine(String line) {
+    writeLines(Collections.singletonList(line));
+  }
+
+  @Override
+  public void writeLines(List<String> lines) {
+    byte[][] encoded = new byte[lines.size()][];
+    int length = 0;
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = lines.get(i).getBytes(UTF8);
+      length += encoded[i].length + LINE_SEPARATOR.length;
+    }
+    byte[] bytes = new byte[length];
+    int pos = 0;
+    for (byte[] line: encoded) {
+      System.arraycopy(line, 0, bytes, pos, line.length);
+      pos += line.length;
+      System.arraycopy(LINE_SEPARATOR, 0, bytes, pos, LINE_SEPARATOR.length);
+      pos += LINE_SEPARATOR.length;
+    }
+    lock.lock();
+    try {
+      if (stream != null) {
+        stream.write(bytes);
+      } else {
+        FileOutputStream reopened = new FileOutputStream(file, true);
+        try {
+          reopened.write(bytes);
+        } finally {
+          reopened.close();
+        }
+      }
+    } catch (IOException e) {
+      // Like PrintStream, we ignore output errors, since there would be nowhere to report them.
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Each write goes directly to the file, so there is nothing to flush.
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return true;
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (stream != null) {
+        stream.close();
+        stream = null;
+      }
+    } catch (IOException e) {
+      // The file is no longer usable either way.
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.launchdarkly.logging;
+
+/**
+ * See {@link Logs#withFlightRecorderEvents(LDLogAdapter)}.
+ * <p>
+ * This version of the class is used in Java 8 and Android, which do not have JDK Flight
+ * Recorder, so it leaves the adapter unchanged. The jar is a multi-release jar, and in Java 11
+ * and later the version of this class in {@code src/main/java11} is loaded instead.
+ */
+final class JfrLogging {
+  private JfrLogging() {}
+
+  static LDLogAdapter wrap(LDLogAdapter adapter) {
+    return adapter; // COVERAGE: not executed when tests run in Java 11+, where the other version is used
+  }
+}
@@ -0,0 +1,89 @@
+package com.launchdarkly.logging;
+
+class KeySampler implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  // The sampling key of the logger whose channel is being created on this thread, if any.
+  // LDLogAdapter.newChannel only takes a name, so this is how the key reaches a sampler that
+  // is wrapped in other adapters: they pass the call on to it on the same thread.
+  private static final ThreadLocal<String> currentKey = new ThreadLocal<>();
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final long threshold;
+  private final LDLogAdapter unsampledAdapter;
+
+  KeySampler(LDLogAdapter wrappedAdapter, double rate, LDLogLevel sampledLevel) {
+    this.wrappedAdapter = wrappedAdapter;
+    // A key is sampled if the top 53 bits of its hash, as a fraction of 2^53, are less than
+    // the rate.
+    this.threshold = (long)(Math.max(0, Math.min(1, rate)) * (1L << 53));
+    // Loggers whose key is not sampled only get the levels above sampledLevel; if that is
+    // ERROR or NONE, they get nothing.
+    LDLogLevel level = sampledLevel == null ? LDLogLevel.DEBUG : sampledLevel;
+    LDLogLevel[] levels = LDLogLevel.values();
+    this.unsampledAdapter = new LevelFilter(wrappedAdapter,
+        levels[Math.min(level.ordinal() + 1, levels.length - 1)]);
+  }
+
+  // Creates a channel for a logger with the given key, which is seen by any KeySampler that
+  // the adapter's newChannel call reaches. If an adapter creates another logger while doing
+  // so, that logger has its own key or none, and the outer key is restored afterward.
+  static Channel newChannel(LDLogAdapter adapter, String name, String samplingKey) {
+    String previousKey = currentKey.get();
+    if (samplingKey == null && previousKey == null) {
+      return adapter.newChannel(name);
+    }
+    setCurrentKey(samplingKey);
+    try {
+      return adapter.newChannel(name);
+    } finally {
+      setCurrentKey(previousKey);
+    }
+  }
+
+  private static void setCurrentKey(String samplingKey) {
+    if (samplingKey == null) {
+      currentKey.remove();
+    } else {
+      currentKey.set(samplingKey);
+    }
+  }
+
+  // Messages from loggers without a sampling key are not sampled.
+  @Override
+  public Channel newChannel(String name) {
+    String samplingKey = currentKey.get();
+    return samplingKey == null || isSampled(samplingKey) ? wrappedAdapter.newChannel(name) :
+        unsampledAdapter.newChannel(name);
+  }
+
+  boolean isSampled(String key) {
+    return (hash(key) >>> 11) < threshold;
+  }
+
+  // 64-bit FNV-1a over the UTF-16 code units of the string, followed by the MurmurHash3
+  // finalizer so that keys that differ only in their last characters are spread over the
+  // whole range. Unlike String.hashCode(), this gives well-distributed values even for short
+  // or sequential keys, and it is the same in every JVM.
+  static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= (h >>> 33);
+    h *= 0xff51afd7ed558ccdL;
+    h ^= (h >>> 33);
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= (h >>> 33);
+    return h;
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+}
@@ -1,95 +1,219 @@
 package com.launchdarkly.logging;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
-import static com.launchdarkly.logging.SimpleFormat.format;
-
 /**
- * See {@link Logs#toJavaUtilLogging()}.
+ * See {@link Logs#toJavaUtilLogging()} and {@link Logs#toJavaUtilLoggingWithCachedLevels()}.
  */
 final class LDJavaUtilLogging implements LDLogAdapter, LDLogAdapter.IsConfiguredExternally {
-  static final LDLogAdapter INSTANCE = new LDJavaUtilLogging();
+  static final LDLogAdapter INSTANCE = new LDJavaUtilLogging(false);
+  static final LDLogAdapter CACHED_LEVELS_INSTANCE = new LDJavaUtilLogging(true);
+
+  // Incremented whenever logger levels may have changed. Each channel remembers the value it
+  // saw when it last computed its logger's effective level, and computes it again if the value
+  // is different.
+  private static final AtomicInteger levelGeneration = new AtomicInteger();
+
+  static {
+    addConfigurationListener();
+  }
   
-  private LDJavaUtilLogging() {}
+  private final boolean cacheLevels;
+
+  private LDJavaUtilLogging(boolean cacheLevels) {
+    this.cacheLevels = cacheLevels;
+  }
+
+  static void refreshLevels() {
+    levelGeneration.incrementAndGet();
+  }
+
+  // LogManager.addConfigurationListener was added in Java 9 and does not exist in Android, so
+  // we call it by reflection; where it is not available, only refreshLevels() has any effect.
+  private static void addConfigurationListener() {
+    try {
+      LogManager.class.getMethod("addConfigurationListener", Runnable.class).invoke(
+          LogManager.getLogManager(),
+          new Runnable() {
+            @Override
+            public void run() {
+              refreshLevels();
+            }
+          });
+    } catch (Exception e) { // COVERAGE: only executed in Java 8 and Android
+      // nothing else to do
+    }
+  }
   
   @Override
   public Channel newChannel(String name) {
-    return new ChannelImpl(Logger.getLogger(name));
+    return new ChannelImpl(Logger.getLogger(name), cacheLevels);
   }
   
   private static final class ChannelImpl implements Channel {
     private final java.util.logging.Logger logger;
+    private final boolean cacheLevels;
+    // The generation number in the high 32 bits, and the effective level value in the low 32
+    // bits, so that both can be read at once. The initial value never matches a generation.
+    private volatile long cachedLevel = Long.MIN_VALUE;
     
-    ChannelImpl(java.util.logging.Logger logger) {
+    ChannelImpl(java.util.logging.Logger logger, boolean cacheLevels) {
       this.logger = logger;
+      this.cacheLevels = cacheLevels;
     }
     
+    // With cacheLevels, this is equivalent to Logger.isLoggable, except that the effective
+    // level is cached, so a change made with Logger.setLevel is not seen until the cache is
+    // refreshed.
     @Override
     public boolean isEnabled(LDLogLevel level) {
-      switch (level) {
-      case DEBUG:
-        return logger.isLoggable(Level.FINE);
-      case INFO:
-        return logger.isLoggable(Level.INFO);
-      case WARN:
-        return logger.isLoggable(Level.WARNING);
-      default:
-        return logger.isLoggable(Level.SEVERE);
+      return cacheLevels ? julLevel(level).intValue() >= effectiveLevelValue() :
+        logger.isLoggable(julLevel(level));
+    }
+
+    private int effectiveLevelValue() {
+      int generation = levelGeneration.get();
+      long cached = cachedLevel;
+      if ((int)(cached >>> 32) == generation && cached != Long.MIN_VALUE) {
+        return (int)cached;
       }
+      // We read the generation before computing the level, so if the levels change while we
+      // are doing this, the generation will have changed and we will do it again next time.
+      int levelValue = Level.INFO.intValue();
+      for (Logger l = logger; l != null; l = l.getParent()) {
+        Level configuredLevel = l.getLevel();
+        if (configuredLevel != null) {
+          levelValue = configuredLevel.intValue();
+          break;
+        }
+      }
+      cachedLevel = ((long)generation << 32) | (levelValue & 0xffffffffL);
+      return levelValue;
     }
     
-    // To avoid unnecessary string computations for debug output, we don't want to
-    // pre-format messages for disabled levels. We'll avoid that by checking if the
-    // level is enabled first. It would be simpler to use the overloads of Logger
-    // methods that take a Supplier<String> rather than a String-- but, those don't
-    // exist in older Android API versions.
+    // We build each LogRecord ourselves rather than calling methods like Logger.fine(String),
+    // for two reasons. First, a record created by those methods does not know its source class
+    // and method until a handler asks for them, and then walks the stack to find them, which is
+    // expensive; the caller it would find is just this class, so we mark them as unknown instead.
+    // Second, that way the message is only formatted if a handler actually publishes the record,
+    // rather than whenever the level is enabled; see DeferredLogRecord. It would be simpler to
+    // use the overloads of Logger methods that take a Supplier<String>, but those don't exist
+    // in older Android API versions.
     
     @Override
     public void log(LDLogLevel level, Object message) {
       if (isEnabled(level)) {
-        logInternal(level, message == null ? "" : message.toString());
+        logInternal(level, new DeferredLogRecord(julLevel(level), message, null));
       }
     }
     
     @Override
     public void log(LDLogLevel level, String format, Object param) {
       if (isEnabled(level)) {
-        logInternal(level, format(format, param));
+        logInternal(level, new DeferredLogRecord(julLevel(level), format, new Object[] { param }));
       }
     }
 
     @Override
     public void log(LDLogLevel level, String format, Object param1, Object param2) {
       if (isEnabled(level)) {
-        logInternal(level, format(format, param1, param2));
+        logInternal(level, new DeferredLogRecord(julLevel(level), format, new Object[] { param1, param2 }));
       }
     }
 
     @Override
     public void log(LDLogLevel level, String format, Object... params) {
       if (isEnabled(level)) {
-        logInternal(level, format(format, params));
+        logInternal(level, new DeferredLogRecord(julLevel(level), format, params));
       }
     }
     
-    private void logInternal(LDLogLevel level, String text) {
-      switch (level) {
-      case DEBUG:
-        logger.fine(text);
-        break;
-      case INFO:
-        logger.info(text);
-        break;
-      case WARN:
-        logger.warning(text);
-        break;
-      case ERROR:
-        logger.severe(text);
-        break;
-      default:
-        break;
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        DeferredLogRecord record = new DeferredLogRecord(julLevel(level), format, params);
+        record.setThrown(throwable);
+        logInternal(level, record);
       }
     }
+
+    private void logInternal(LDLogLevel level, DeferredLogRecord record) {
+      if (level != LDLogLevel.NONE) {
+        record.setLoggerName(logger.getName());
+        record.setSourceClassName(null);
+        record.setSourceMethodName(null);
+        logger.log(record);
+      }
+    }
+  }
+
+  private static Level julLevel(LDLogLevel level) {
+    switch (level) {
+    case DEBUG:
+      return Level.FINE;
+    case INFO:
+      return Level.INFO;
+    case WARN:
+      return Level.WARNING;
+    default:
+      return Level.SEVERE;
+    }
+  }
+
+  /**
+   * A {@link LogRecord} whose message is not computed until {@link #getMessage()} is called.
+   * <p>
+   * The record holds the original message object, or the format string and parameters, and
+   * {@link SimpleFormat} is applied the first time a handler or formatter asks for the
+   * message; the result is kept for any later calls. The parameters are not passed to
+   * {@link LogRecord#setParameters(Object[])}, because JUL formatters would then try to apply
+   * {@code java.text.MessageFormat} syntax, which is different from ours.
+   */
+  static final class DeferredLogRecord extends LogRecord {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object messageOrFormat;
+    private final transient Object[] params;
+    private volatile boolean rendered;
+
+    // If params is null, messageOrFormat is the message itself; otherwise it is a format string.
+    DeferredLogRecord(Level level, Object messageOrFormat, Object[] params) {
+      super(level, null);
+      this.messageOrFormat = messageOrFormat;
+      this.params = params;
+    }
+
+    @Override
+    public String getMessage() {
+      if (!rendered) {
+        // If two threads get here at once, they will both compute the same string.
+        super.setMessage(render());
+        rendered = true;
+      }
+      return super.getMessage();
+    }
+
+    @Override
+    public void setMessage(String message) {
+      super.setMessage(message);
+      rendered = true;
+    }
+
+    private String render() {
+      if (params == null) {
+        return messageOrFormat == null ? "" : messageOrFormat.toString();
+      }
+      return SimpleFormat.format((String)messageOrFormat, params);
+    }
+
+    // The deferred fields are transient, so the message must be computed before serializing.
+    private Object writeReplace() {
+      getMessage();
+      return this;
+    }
   }
 }
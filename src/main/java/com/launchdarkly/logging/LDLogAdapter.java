@@ -55,6 +55,12 @@ public interface LDLogAdapter {
    * <p>
    * The reason that there are four overloads for {@link #log} is for efficiency, to avoid
    * allocating a params array in the common case of a message with fewer than three parameters.
+   * <p>
+   * Messages that are about an exception can also carry the exception itself, through
+   * {@link #log(LDLogLevel, Throwable, String, Object...)}. An implementation that delegates to
+   * another logging framework should override that method to pass the exception on, so that
+   * the framework can render the stacktrace in its own way; other implementations can use the
+   * default, which adds the stacktrace to the message text.
    */
   public interface Channel {
     /**
@@ -105,8 +111,72 @@ public interface LDLogAdapter {
      * @param params the parameters
      */
     void log(LDLogLevel level, String format, Object... params);
+
+    /**
+     * Logs a message that is about an exception, with any number of parameters.
+     * <p>
+     * This is the underlying implementation of methods like
+     * {@link LDLogger#error(Throwable, String, Object...)}. If {@code throwable} is null, the
+     * default implementation is the same as {@link #log(LDLogLevel, String, Object...)}.
+     * Otherwise, if the level is enabled, it calls {@link #log(LDLogLevel, Object)} with a
+     * message whose text is the formatted message followed by the exception's stacktrace,
+     * starting on a new line. The text is not computed unless {@code toString()} is called on
+     * the message.
+     *
+     * @param level the log level
+     * @param throwable the exception, or null
+     * @param format the format string
+     * @param params the parameters
+     * @since 1.2.0
+     */
+    default void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (throwable == null) {
+        log(level, format, params);
+      } else if (isEnabled(level)) {
+        log(level, LogValues.messageWithTrace(format, params, throwable));
+      }
+    }
   }
   
+  /**
+   * Optional interface for an adapter that can hold output before writing it, or that keeps
+   * resources open.
+   * <p>
+   * For instance, an adapter created with {@link SimpleLogging#async(int)} writes output on a
+   * background thread, so some output may not have been written yet when the application
+   * exits; calling {@link #flush(long)} or {@link #close()} first makes sure that it is
+   * written. Adapters that wrap other adapters, such as the ones returned by
+   * {@link Logs#level(LDLogAdapter, LDLogLevel)} and {@link Logs#toMultiple(LDLogAdapter...)},
+   * implement this interface by passing the calls on to the adapters they wrap.
+   * <p>
+   * Since not every adapter implements this interface, it is simplest to use
+   * {@link Logs#flush(LDLogAdapter, long)} and {@link Logs#close(LDLogAdapter)}, which work
+   * with any adapter. To close an adapter automatically when the JVM exits, use
+   * {@link Logs#closeOnShutdown(LDLogAdapter, long)}.
+   *
+   * @since 1.2.0
+   */
+  public interface Lifecycle {
+    /**
+     * Writes any output that has not yet been written, waiting until it has been written or
+     * until the timeout has elapsed.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if all output was written, or false if the timeout elapsed first
+     */
+    boolean flush(long timeoutMillis);
+
+    /**
+     * Writes any output that has not yet been written, and releases any resources such as
+     * threads or open files.
+     * <p>
+     * The adapter can still be used afterward, but it may no longer hold output or use
+     * those resources; for instance, an asynchronous adapter becomes synchronous. Calling
+     * this method more than once has no additional effect.
+     */
+    void close();
+  }
+
   /**
    * Marker interface indicating that this adapter is for an external framework that has its
    * own configuration mechanism. If the adapter implements this interface, the LaunchDarkly
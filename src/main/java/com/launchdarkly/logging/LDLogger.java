@@ -30,18 +30,70 @@ import static com.launchdarkly.logging.LDLogLevel.WARN;
  * To avoid unnecessary computations, {@code toString()} is not called on parameters
  * (or, in the single-argument methods, on the single {@code Object}) if logging at
  * the specified level is disabled.
+ * <p>
+ * Each level also has a method that takes a {@code Throwable} as its first parameter, for
+ * messages that are about an exception. It comes first, rather than last as in SLF4J, so
+ * that it cannot be confused with a message parameter.
+ * <p>
+ * The system property {@link #MINIMUM_LEVEL_PROPERTY} can set a level below which every
+ * logger discards its output, regardless of the adapter. Unlike filtering in the adapter,
+ * this is fixed when the class is loaded, so the Java runtime can remove calls at the lower
+ * levels from compiled code completely.
  */
 public final class LDLogger {
+  /**
+   * The name of a system property that sets the lowest log level that any {@link LDLogger}
+   * will write: "debug", "info", "warn", "error", or "none".
+   * <p>
+   * The property is read once, when the {@link LDLogger} class is first loaded, so it must be
+   * set on the command line (for example, {@code -Dcom.launchdarkly.logging.minimumLevel=info})
+   * or before any logging code runs; changing it later has no effect. Output below that level
+   * is discarded without calling the adapter, and {@link #isEnabled(LDLogLevel)} returns false
+   * for it. Because the level cannot change afterward, once the JIT compiler has inlined a
+   * call such as {@code logger.debug(format, a, b, c)}, it can remove the call entirely,
+   * including the allocation of the varargs array. If the property is not set, or is not one
+   * of those values, all levels are allowed and the adapter decides what to write.
+   *
+   * @since 1.2.0
+   */
+  public static final String MINIMUM_LEVEL_PROPERTY = "com.launchdarkly.logging.minimumLevel";
+
+  // These are static final so that the JIT compiler treats them as constants.
+  private static final LDLogLevel MINIMUM_LEVEL = minimumLevelFromSystemProperty(MINIMUM_LEVEL_PROPERTY);
+  private static final boolean DEBUG_ENABLED = DEBUG.compareTo(MINIMUM_LEVEL) >= 0;
+  private static final boolean INFO_ENABLED = INFO.compareTo(MINIMUM_LEVEL) >= 0;
+  private static final boolean WARN_ENABLED = WARN.compareTo(MINIMUM_LEVEL) >= 0;
+  private static final boolean ERROR_ENABLED = ERROR.compareTo(MINIMUM_LEVEL) >= 0;
+
   private final String name;
   final LDLogAdapter adapter; // exposed for testing
+  private final String samplingKey;
   private final Channel channel;
   
-  LDLogger(String name, LDLogAdapter adapter, Channel channel) {
+  LDLogger(String name, LDLogAdapter adapter, String samplingKey) {
     this.name = name;
     this.adapter = adapter;
-    this.channel = channel;
+    this.samplingKey = samplingKey;
+    this.channel = KeySampler.newChannel(adapter, name, samplingKey);
   }
   
+  static LDLogLevel minimumLevelFromSystemProperty(String propertyName) {
+    String value = null;
+    try {
+      value = System.getProperty(propertyName);
+    } catch (SecurityException e) { // COVERAGE: only executed if a security manager forbids reading the property
+      // nothing else to do
+    }
+    if (value != null) {
+      for (LDLogLevel level: LDLogLevel.values()) {
+        if (level.name().equalsIgnoreCase(value.trim())) {
+          return level;
+        }
+      }
+    }
+    return DEBUG;
+  }
+
   /**
    * Returns a logger instance using the specified adapter.
    * 
@@ -50,7 +102,7 @@ public final class LDLogger {
    * @return a logger instance
    */
   public static LDLogger withAdapter(LDLogAdapter adapter, String name) {
-    return new LDLogger(name, adapter, adapter.newChannel(name));
+    return new LDLogger(name, adapter, null);
   }
 
   /**
@@ -73,10 +125,59 @@ public final class LDLogger {
     if (nameSuffix == null || nameSuffix.equals("")) {
       return this;
     }
-    String subName = name + "." + nameSuffix;
-    return new LDLogger(subName, adapter, adapter.newChannel(subName));
+    return new LDLogger(name + "." + nameSuffix, adapter, samplingKey);
   }
-  
+
+  /**
+   * Returns a logger instance derived from this instance, whose output may be sampled by a
+   * key such as a user or context key.
+   * <p>
+   * This only has an effect if the logger's adapter was created with
+   * {@link Logs#sampledByKey(LDLogAdapter, double, LDLogLevel)}, or wraps such an adapter. In
+   * that case, the key
+   * determines whether the new logger writes messages at the sampled levels: for any given
+   * key, either all of them are written or none of them are, and the same keys are chosen
+   * every time the application runs. If they are not written, {@link #isEnabled(LDLogLevel)}
+   * returns false for those levels, so callers can skip computing the messages. Loggers
+   * derived from the new logger with {@link #subLogger(String)}, and the loggers of scopes
+   * started with {@link #beginScope()}, use the same key.
+   *
+   * @param samplingKey a key that identifies the context of the log output, or null for none
+   * @return a logger instance with the same name, that uses the same adapter
+   * @since 1.2.0
+   */
+  public LDLogger withSamplingKey(String samplingKey) {
+    return new LDLogger(name, adapter, samplingKey);
+  }
+
+  /**
+   * Starts a {@link LogScope} whose output is only written if something goes wrong.
+   * <p>
+   * This is the same as {@link #beginScope(int)} with a limit of
+   * {@link LogScope#DEFAULT_MAX_MESSAGES}.
+   *
+   * @return a new scope; use {@link LogScope#getLogger()} to log within it
+   * @since 1.2.0
+   */
+  public LogScope beginScope() {
+    return beginScope(LogScope.DEFAULT_MAX_MESSAGES);
+  }
+
+  /**
+   * Starts a {@link LogScope} whose output is only written if something goes wrong.
+   * <p>
+   * Messages logged through the scope's logger are kept in memory until the scope fails,
+   * and are discarded if it is closed without failing. See {@link LogScope} for details.
+   *
+   * @param maxMessages the maximum number of messages to keep; if more are logged, the
+   *   oldest ones are dropped
+   * @return a new scope; use {@link LogScope#getLogger()} to log within it
+   * @since 1.2.0
+   */
+  public LogScope beginScope(int maxMessages) {
+    return new LogScope(name, adapter, samplingKey, maxMessages);
+  }
+
   /**
    * Tests whether log output for a certain level is at least potentially visible.
    * <p>
@@ -94,7 +195,7 @@ public final class LDLogger {
    * @return true if this level is potentially visible
    */
   public boolean isEnabled(LDLogLevel level) {
-    return channel.isEnabled(level);
+    return level.compareTo(MINIMUM_LEVEL) >= 0 && channel.isEnabled(level);
   }
   
   /**
@@ -102,7 +203,9 @@ public final class LDLogger {
    * @param message the message (will be converted to a string with {@code toString()})
    */
   public void debug(Object message) {
-    channel.log(DEBUG, message);
+    if (DEBUG_ENABLED) {
+      channel.log(DEBUG, message);
+    }
   }
 
   /**
@@ -111,7 +214,9 @@ public final class LDLogger {
    * @param param the parameter
    */
   public void debug(String format, Object param) {
-    channel.log(DEBUG, format, param);
+    if (DEBUG_ENABLED) {
+      channel.log(DEBUG, format, param);
+    }
   }
 
   /**
@@ -121,7 +226,9 @@ public final class LDLogger {
    * @param param2 the second parameter
    */
   public void debug(String format, Object param1, Object param2) {
-    channel.log(DEBUG, format, param1, param2);
+    if (DEBUG_ENABLED) {
+      channel.log(DEBUG, format, param1, param2);
+    }
   }
 
   /**
@@ -130,7 +237,28 @@ public final class LDLogger {
    * @param params the parameters
    */
   public void debug(String format, Object... params) {
-    channel.log(DEBUG, format, params);
+    if (DEBUG_ENABLED) {
+      channel.log(DEBUG, format, params);
+    }
+  }
+
+  /**
+   * Writes a message about an exception at {@link LDLogLevel#DEBUG} level, with any number of
+   * parameters.
+   * <p>
+   * The exception is passed to the log adapter separately from the message, so an adapter
+   * for another logging framework, such as {@link LDSLF4J}, can let that framework render the
+   * stacktrace. Other adapters write the stacktrace after the message.
+   *
+   * @param throwable the exception, or null
+   * @param format the format string, containing "{}" placeholders
+   * @param params the parameters
+   * @since 1.2.0
+   */
+  public void debug(Throwable throwable, String format, Object... params) {
+    if (DEBUG_ENABLED) {
+      channel.log(DEBUG, throwable, format, params);
+    }
   }
 
   /**
@@ -138,7 +266,9 @@ public final class LDLogger {
    * @param message the message (will be converted to a string with {@code toString()})
    */
   public void info(Object message) {
-    channel.log(INFO, message);
+    if (INFO_ENABLED) {
+      channel.log(INFO, message);
+    }
   }
 
   /**
@@ -147,7 +277,9 @@ public final class LDLogger {
    * @param param the parameter
    */
   public void info(String format, Object param) {
-    channel.log(INFO, format, param);
+    if (INFO_ENABLED) {
+      channel.log(INFO, format, param);
+    }
   }
 
   /**
@@ -157,7 +289,9 @@ public final class LDLogger {
    * @param param2 the second parameter
    */
   public void info(String format, Object param1, Object param2) {
-    channel.log(INFO, format, param1, param2);
+    if (INFO_ENABLED) {
+      channel.log(INFO, format, param1, param2);
+    }
   }
 
   /**
@@ -166,7 +300,28 @@ public final class LDLogger {
    * @param params the parameters
    */
   public void info(String format, Object... params) {
-    channel.log(INFO, format, params);
+    if (INFO_ENABLED) {
+      channel.log(INFO, format, params);
+    }
+  }
+
+  /**
+   * Writes a message about an exception at {@link LDLogLevel#INFO} level, with any number of
+   * parameters.
+   * <p>
+   * The exception is passed to the log adapter separately from the message, so an adapter
+   * for another logging framework, such as {@link LDSLF4J}, can let that framework render the
+   * stacktrace. Other adapters write the stacktrace after the message.
+   *
+   * @param throwable the exception, or null
+   * @param format the format string, containing "{}" placeholders
+   * @param params the parameters
+   * @since 1.2.0
+   */
+  public void info(Throwable throwable, String format, Object... params) {
+    if (INFO_ENABLED) {
+      channel.log(INFO, throwable, format, params);
+    }
   }
 
   /**
@@ -174,7 +329,9 @@ public final class LDLogger {
    * @param message the message (will be converted to a string with {@code toString()})
    */
   public void warn(Object message) {
-    channel.log(WARN, message);
+    if (WARN_ENABLED) {
+      channel.log(WARN, message);
+    }
   }
 
   /**
@@ -183,7 +340,9 @@ public final class LDLogger {
    * @param param the parameter
    */
    public void warn(String format, Object param) {
-    channel.log(WARN, format, param);
+    if (WARN_ENABLED) {
+      channel.log(WARN, format, param);
+    }
   }
 
    /**
@@ -193,7 +352,9 @@ public final class LDLogger {
     * @param param2 the second parameter
     */
   public void warn(String format, Object param1, Object param2) {
-    channel.log(WARN, format, param1, param2);
+    if (WARN_ENABLED) {
+      channel.log(WARN, format, param1, param2);
+    }
   }
 
   /**
@@ -202,7 +363,28 @@ public final class LDLogger {
    * @param params the parameters
    */
   public void warn(String format, Object... params) {
-    channel.log(WARN, format, params);
+    if (WARN_ENABLED) {
+      channel.log(WARN, format, params);
+    }
+  }
+
+  /**
+   * Writes a message about an exception at {@link LDLogLevel#WARN} level, with any number of
+   * parameters.
+   * <p>
+   * The exception is passed to the log adapter separately from the message, so an adapter
+   * for another logging framework, such as {@link LDSLF4J}, can let that framework render the
+   * stacktrace. Other adapters write the stacktrace after the message.
+   *
+   * @param throwable the exception, or null
+   * @param format the format string, containing "{}" placeholders
+   * @param params the parameters
+   * @since 1.2.0
+   */
+  public void warn(Throwable throwable, String format, Object... params) {
+    if (WARN_ENABLED) {
+      channel.log(WARN, throwable, format, params);
+    }
   }
 
   /**
@@ -210,7 +392,9 @@ public final class LDLogger {
    * @param message the message (will be converted to a string with {@code toString()})
    */
   public void error(Object message) {
-    channel.log(ERROR, message);
+    if (ERROR_ENABLED) {
+      channel.log(ERROR, message);
+    }
   }
 
   /**
@@ -219,7 +403,9 @@ public final class LDLogger {
    * @param param the parameter
    */
    public void error(String format, Object param) {
-    channel.log(ERROR, format, param);
+    if (ERROR_ENABLED) {
+      channel.log(ERROR, format, param);
+    }
   }
 
    /**
@@ -229,7 +415,9 @@ public final class LDLogger {
     * @param param2 the second parameter
     */
   public void error(String format, Object param1, Object param2) {
-    channel.log(ERROR, format, param1, param2);
+    if (ERROR_ENABLED) {
+      channel.log(ERROR, format, param1, param2);
+    }
   }
 
   /**
@@ -238,6 +426,27 @@ public final class LDLogger {
    * @param params the parameters
    */
   public void error(String format, Object... params) {
-    channel.log(ERROR, format, params);
+    if (ERROR_ENABLED) {
+      channel.log(ERROR, format, params);
+    }
+  }
+
+  /**
+   * Writes a message about an exception at {@link LDLogLevel#ERROR} level, with any number of
+   * parameters.
+   * <p>
+   * The exception is passed to the log adapter separately from the message, so an adapter
+   * for another logging framework, such as {@link LDSLF4J}, can let that framework render the
+   * stacktrace. Other adapters write the stacktrace after the message.
+   *
+   * @param throwable the exception, or null
+   * @param format the format string, containing "{}" placeholders
+   * @param params the parameters
+   * @since 1.2.0
+   */
+  public void error(Throwable throwable, String format, Object... params) {
+    if (ERROR_ENABLED) {
+      channel.log(ERROR, throwable, format, params);
+    }
   }
 }
@@ -1,6 +1,12 @@
 package com.launchdarkly.logging;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.spi.LocationAwareLogger;
 
 /**
  * An adapter for redirecting LaunchDarkly log output to SLF4J.
@@ -15,6 +21,11 @@ import org.slf4j.LoggerFactory;
  * With this integration, SLF4J is responsible for all other configuration in terms of
  * specifying where the output actually goes and what log levels to enable. See SLF4J
  * documentation for details.
+ * <p>
+ * If the SLF4J implementation supports reporting the location of the code that produced
+ * each message (for instance, the {@code %caller} pattern in Logback or {@code %L} in Log4j),
+ * the location that it reports will be the code that called {@link LDLogger}, rather than
+ * this adapter.
  */
 public final class LDSLF4J {
   private LDSLF4J() {}
@@ -31,34 +42,150 @@ public final class LDSLF4J {
     return AdapterImpl.INSTANCE;
   }
 
+  // Channels are cached by name, because newChannel is called whenever an LDLogger is created,
+  // including by subLogger, and looking up an SLF4J logger can be slow in some implementations.
+  // A channel has no state except its SLF4J logger, which SLF4J implementations also keep for
+  // the life of the application, so sharing channels is safe and the cache grows no faster
+  // than SLF4J's own.
   private static final class AdapterImpl implements LDLogAdapter, LDLogAdapter.IsConfiguredExternally {
     private static final AdapterImpl INSTANCE = new AdapterImpl();
 
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+
     @Override
     public Channel newChannel(String name) {
-      return new ChannelImpl(LoggerFactory.getLogger(name));
+      Channel channel = channels.get(name);
+      if (channel == null) {
+        Channel newChannel = channelFor(LoggerFactory.getLogger(name));
+        channel = channels.putIfAbsent(name, newChannel);
+        if (channel == null) {
+          channel = newChannel;
+        }
+      }
+      return channel;
     }
   }
-  
-  private static final class ChannelImpl implements LDLogAdapter.Channel {
-    private final org.slf4j.Logger logger;
-    
-    ChannelImpl(org.slf4j.Logger logger) {
+
+  static LDLogAdapter.Channel channelFor(org.slf4j.Logger logger) {
+    return logger instanceof LocationAwareLogger ?
+        new LocationAwareChannelImpl((LocationAwareLogger)logger) : new ChannelImpl(logger);
+  }
+
+  private static boolean isEnabled(org.slf4j.Logger logger, LDLogLevel level) {
+    switch (level) {
+    case DEBUG:
+      return logger.isDebugEnabled();
+    case INFO:
+      return logger.isInfoEnabled();
+    case WARN:
+      return logger.isWarnEnabled();
+    default:
+      return logger.isErrorEnabled();
+    }
+  }
+
+  /**
+   * Used if the SLF4J implementation supports {@link LocationAwareLogger}, as most do.
+   * <p>
+   * When an implementation needs to know where a message came from, it walks the stack and
+   * skips frames up to and including the last one belonging to the class name that we pass to
+   * {@link LocationAwareLogger#log(org.slf4j.Marker, String, int, String, Object[], Throwable)}.
+   * If we called methods like {@code Logger.debug} instead, the last frame that it skipped
+   * would be its own, so it would report this class as the location. We pass the name of
+   * {@link LDLogger}, since that is the class that application code calls; any adapters that
+   * are between it and this one, such as {@link LevelFilter}, are deeper in the stack, so
+   * they are skipped as well.
+   */
+  private static final class LocationAwareChannelImpl implements LDLogAdapter.Channel {
+    private static final String FQCN = LDLogger.class.getName();
+
+    private final LocationAwareLogger logger;
+
+    LocationAwareChannelImpl(LocationAwareLogger logger) {
       this.logger = logger;
     }
-    
+
     @Override
     public boolean isEnabled(LDLogLevel level) {
+      return LDSLF4J.isEnabled(logger, level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (isEnabled(level)) {
+        logInternal(level, message == null ? "" : message.toString(), null);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (isEnabled(level)) {
+        logFormatted(level, MessageFormatter.format(format, param), null);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (isEnabled(level)) {
+        logFormatted(level, MessageFormatter.format(format, param1, param2), null);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (isEnabled(level)) {
+        logFormatted(level, MessageFormatter.arrayFormat(format, params), null);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        logFormatted(level, MessageFormatter.arrayFormat(format, params), throwable);
+      }
+    }
+
+    // The message is formatted here, rather than passing the format and parameters to
+    // LocationAwareLogger.log, because some implementations of that method in SLF4J 1.7, such
+    // as the ones in slf4j-log4j12 and slf4j-jdk14, ignore the parameters and write the format
+    // string as it is. As with the other SLF4J logging methods, a Throwable that is the last
+    // parameter, and has no placeholder, is treated as the exception for the message.
+    private void logFormatted(LDLogLevel level, FormattingTuple formatted, Throwable throwable) {
+      logInternal(level, formatted.getMessage(), throwable == null ? formatted.getThrowable() : throwable);
+    }
+
+    private void logInternal(LDLogLevel level, String message, Throwable throwable) {
+      int levelInt;
       switch (level) {
       case DEBUG:
-        return logger.isDebugEnabled();
+        levelInt = LocationAwareLogger.DEBUG_INT;
+        break;
       case INFO:
-        return logger.isInfoEnabled();
+        levelInt = LocationAwareLogger.INFO_INT;
+        break;
       case WARN:
-        return logger.isWarnEnabled();
+        levelInt = LocationAwareLogger.WARN_INT;
+        break;
+      case ERROR:
+        levelInt = LocationAwareLogger.ERROR_INT;
+        break;
       default:
-        return logger.isErrorEnabled();
+        return;
       }
+      logger.log(null, FQCN, levelInt, message, null, throwable);
+    }
+  }
+  
+  private static final class ChannelImpl implements LDLogAdapter.Channel {
+    private final org.slf4j.Logger logger;
+    
+    ChannelImpl(org.slf4j.Logger logger) {
+      this.logger = logger;
+    }
+    
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return LDSLF4J.isEnabled(logger, level);
     }
     
     @Override
@@ -142,6 +269,17 @@ public final class LDSLF4J {
       default:
         break;
       }
+    }
+
+    // SLF4J treats a Throwable that is the last argument, with no placeholder for it in the
+    // format string, as the exception for the message.
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        Object[] args = Arrays.copyOf(params, params.length + 1);
+        args[params.length] = throwable;
+        log(level, format, args);
+      }
     }      
   }
 }
@@ -0,0 +1,119 @@
+package com.launchdarkly.logging;
+
+class LengthLimiter implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final int maxParameterLength;
+  private final int maxMessageLength;
+
+  LengthLimiter(LDLogAdapter wrappedAdapter, int maxParameterLength, int maxMessageLength) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.maxParameterLength = Math.max(0, maxParameterLength);
+    this.maxMessageLength = Math.max(0, maxMessageLength);
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(wrappedAdapter.newChannel(name));
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  String render(Object message) {
+    return new LimitedAppendable(maxMessageLength).appendValue(message).toString();
+  }
+
+  // Same substitution rules as SimpleFormat, but each parameter is limited to
+  // maxParameterLength characters, and rendering stops once maxMessageLength is reached.
+  String format(String format, Object[] params) {
+    LimitedAppendable out = new LimitedAppendable(maxMessageLength);
+    int pos = 0;
+    int paramIndex = 0;
+    while (pos < format.length() && !out.isTruncated()) {
+      int next = format.indexOf("{}", pos);
+      if (next < 0 || paramIndex >= params.length) {
+        out.append(format, pos, format.length());
+        break;
+      }
+      if (next > 0 && format.charAt(next - 1) == '\\') {
+        out.append(format, pos, next - 1);
+        out.append(format, next, next + 2);
+        pos = next + 2;
+        continue;
+      }
+      out.append(format, pos, next);
+      appendParam(out, params[paramIndex]);
+      paramIndex++;
+      pos = next + 2;
+    }
+    return out.toString();
+  }
+
+  private void appendParam(LimitedAppendable out, Object param) {
+    if (param == null) {
+      return;
+    }
+    if (out.remaining() <= maxParameterLength) {
+      // the message limit will be reached first, so the parameter needs no limit of its own
+      out.appendValue(param);
+    } else {
+      out.append(new LimitedAppendable(maxParameterLength).appendValue(param).toString());
+    }
+  }
+
+  private class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+
+    ChannelImpl(Channel wrappedChannel) {
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, message == null ? null : render(message));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format(format, new Object[] { param }));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format(format, new Object[] { param1, param2 }));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format(format, params));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (wrappedChannel.isEnabled(level)) {
+        // the stacktrace is not limited, since the adapter may render it in its own way
+        wrappedChannel.log(level, throwable, "{}", format(format, params));
+      }
+    }
+  }
+}
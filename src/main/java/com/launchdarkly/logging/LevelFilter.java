@@ -1,6 +1,6 @@
 package com.launchdarkly.logging;
 
-class LevelFilter implements LDLogAdapter {
+class LevelFilter implements LDLogAdapter, LDLogAdapter.Lifecycle {
   final LDLogAdapter wrappedAdapter; // exposed for testing
   private final LDLogLevel enableLevel;
   
@@ -13,6 +13,16 @@ class LevelFilter implements LDLogAdapter {
   public Channel newChannel(String name) {
     return new ChannelImpl(wrappedAdapter.newChannel(name));
   }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
   
   private class ChannelImpl implements Channel {
     private final Channel wrappedChannel;
@@ -53,5 +63,12 @@ class LevelFilter implements LDLogAdapter {
         wrappedChannel.log(level, format, params);
       }
     }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        wrappedChannel.log(level, throwable, format, params);
+      }
+    }
   }
 }
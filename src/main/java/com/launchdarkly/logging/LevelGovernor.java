@@ -0,0 +1,226 @@
+package com.launchdarkly.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+class LevelGovernor implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  static final String LOGGER_NAME = "com.launchdarkly.logging.LevelGovernor";
+  static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+  static final int CALM_WINDOWS = 3;
+  static final LDLogLevel MAX_LEVEL = LDLogLevel.WARN;
+
+  // The level is only lowered if the load at the lower level would be less than this fraction
+  // of the limits, so that it does not go back and forth when the load is near a limit.
+  private static final double LOW_WATER = 0.5;
+
+  private static final LDLogLevel[] LEVELS = LDLogLevel.values();
+  private static final int WRITE_COUNT = LEVELS.length;
+  private static final int WRITE_NANOS = LEVELS.length + 1;
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final LDLogLevel configuredLevel;
+  private final double maxMessagesPerSecond;
+  private final long maxWriteNanos;
+  private final long windowNanos;
+  private final Channel statusChannel;
+  // Counters 0 to LEVELS.length - 1 are the messages logged at each level, whether or not they
+  // were written; then the number of messages written, and the total time spent writing them.
+  private final StripedCounters counters = new StripedCounters(LEVELS.length + 2);
+  private final AtomicLong windowStart;
+  private final ReentrantLock windowLock = new ReentrantLock();
+  private final long[] lastTotals = new long[LEVELS.length + 2]; // protected by windowLock
+  private int calmWindows; // protected by windowLock
+  private volatile LDLogLevel effectiveLevel;
+
+  LevelGovernor(LDLogAdapter wrappedAdapter, LDLogLevel configuredLevel, double maxMessagesPerSecond,
+      long maxWriteMicros, long windowNanos) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.configuredLevel = configuredLevel == null ? LDLogLevel.DEBUG : configuredLevel;
+    this.maxMessagesPerSecond = maxMessagesPerSecond;
+    this.maxWriteNanos = TimeUnit.MICROSECONDS.toNanos(maxWriteMicros);
+    this.windowNanos = windowNanos;
+    this.statusChannel = wrappedAdapter.newChannel(LOGGER_NAME);
+    this.windowStart = new AtomicLong(System.nanoTime());
+    this.effectiveLevel = this.configuredLevel;
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(wrappedAdapter.newChannel(name));
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  LDLogLevel getEffectiveLevel() {
+    return effectiveLevel;
+  }
+
+  // Called after each message. Whichever thread first sees that the current window has ended
+  // starts a new one and evaluates the old one.
+  void checkWindow(long now) {
+    long start = windowStart.get();
+    if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+      endWindow(now - start);
+    }
+  }
+
+  // Decides whether to change the level, based on the messages that were logged and written
+  // since the last time this was called. The level is raised one step at a time when there are
+  // too many messages at the current level, or when writing them is too slow. It is lowered one
+  // step at a time when, for CALM_WINDOWS windows in a row, the messages at the next lower
+  // level would have been well within the limits.
+  void endWindow(long elapsedNanos) {
+    windowLock.lock();
+    try {
+      long[] deltas = new long[lastTotals.length];
+      for (int i = 0; i < deltas.length; i++) {
+        long total = counters.get(i);
+        deltas[i] = total - lastTotals[i];
+        lastTotals[i] = total;
+      }
+      double seconds = Math.max(1, elapsedNanos) / (double)TimeUnit.SECONDS.toNanos(1);
+      long averageWriteNanos = deltas[WRITE_COUNT] == 0 ? 0 : deltas[WRITE_NANOS] / deltas[WRITE_COUNT];
+      LDLogLevel level = effectiveLevel;
+
+      double rate = countAtOrAbove(deltas, level) / seconds;
+      if ((rate > maxMessagesPerSecond || averageWriteNanos > maxWriteNanos) && level.compareTo(MAX_LEVEL) < 0) {
+        calmWindows = 0;
+        LDLogLevel newLevel = LEVELS[level.ordinal() + 1];
+        effectiveLevel = newLevel;
+        statusChannel.log(LDLogLevel.WARN,
+            "Log output is too heavy ({} messages per second, average write time {} microseconds); raising log level from {} to {}",
+            (long)rate, TimeUnit.NANOSECONDS.toMicros(averageWriteNanos), level, newLevel);
+      } else if (level.compareTo(configuredLevel) > 0) {
+        LDLogLevel lowerLevel = LEVELS[level.ordinal() - 1];
+        double lowerRate = countAtOrAbove(deltas, lowerLevel) / seconds;
+        if (lowerRate < maxMessagesPerSecond * LOW_WATER && averageWriteNanos < maxWriteNanos * LOW_WATER) {
+          calmWindows++;
+        } else {
+          calmWindows = 0;
+        }
+        if (calmWindows >= CALM_WINDOWS) {
+          calmWindows = 0;
+          effectiveLevel = lowerLevel;
+          statusChannel.log(LDLogLevel.INFO, "Log output has decreased; lowering log level from {} to {}",
+              level, lowerLevel);
+        }
+      }
+    } finally {
+      windowLock.unlock();
+    }
+  }
+
+  private static long countAtOrAbove(long[] deltas, LDLogLevel level) {
+    long ret = 0;
+    for (int i = level.ordinal(); i < LEVELS.length; i++) {
+      ret += deltas[i];
+    }
+    return ret;
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+
+    ChannelImpl(Channel wrappedChannel) {
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    // A check for a level that the governor has turned off counts as a message at that level.
+    // Callers that check isEnabled before logging, including decorators that are layered on
+    // top of this one, never call log for those levels, so otherwise the governor could not
+    // tell how much output it is holding back, and would lower the level again too soon. A
+    // caller that checks and then logs anyway is counted twice, which only means the level
+    // stays raised a little longer.
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      if (level.compareTo(effectiveLevel) >= 0) {
+        return wrappedChannel.isEnabled(level);
+      }
+      countSuppressed(level);
+      return false;
+    }
+
+    // A message that the configured level or the underlying adapter would not write in any
+    // case is not counted.
+    private void countSuppressed(LDLogLevel level) {
+      if (level.compareTo(configuredLevel) >= 0 && wrappedChannel.isEnabled(level)) {
+        counters.increment(level.ordinal());
+        checkWindow(System.nanoTime());
+      }
+    }
+
+    // Counts the message, and returns true if it should be written.
+    private boolean begin(LDLogLevel level) {
+      if (level.compareTo(effectiveLevel) < 0) {
+        countSuppressed(level);
+        return false;
+      }
+      if (!wrappedChannel.isEnabled(level)) {
+        return false;
+      }
+      counters.increment(level.ordinal());
+      return true;
+    }
+
+    private void end(long startTime) {
+      long now = System.nanoTime();
+      counters.increment(WRITE_COUNT);
+      counters.add(WRITE_NANOS, now - startTime);
+      checkWindow(now);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (begin(level)) {
+        long startTime = System.nanoTime();
+        wrappedChannel.log(level, message);
+        end(startTime);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (begin(level)) {
+        long startTime = System.nanoTime();
+        wrappedChannel.log(level, format, param);
+        end(startTime);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (begin(level)) {
+        long startTime = System.nanoTime();
+        wrappedChannel.log(level, format, param1, param2);
+        end(startTime);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (begin(level)) {
+        long startTime = System.nanoTime();
+        wrappedChannel.log(level, format, params);
+        end(startTime);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (begin(level)) {
+        long startTime = System.nanoTime();
+        wrappedChannel.log(level, throwable, format, params);
+        end(startTime);
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.launchdarkly.logging;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A text buffer that never grows beyond a fixed number of characters.
+ * <p>
+ * Once something is appended that does not fit, the text is cut short, the end of it is
+ * replaced with {@link #TRUNCATED}, and anything appended afterward is ignored, so the result
+ * is never longer than the limit. {@link #appendValue(Object)} renders arrays, collections,
+ * maps, and character sequences piece by piece and stops as soon as the limit is reached,
+ * rather than building the whole string first; other objects still have to be converted with
+ * {@code toString()}.
+ */
+final class LimitedAppendable implements Appendable {
+  static final String TRUNCATED = "...";
+
+  // Containers nested more deeply than this are shown as TRUNCATED, so that a structure that
+  // contains itself indirectly cannot recurse until the stack overflows.
+  private static final int MAX_NESTING = 8;
+
+  private final StringBuilder sb = new StringBuilder();
+  private final int limit;
+  private boolean truncated;
+
+  LimitedAppendable(int limit) {
+    this.limit = Math.max(0, limit);
+  }
+
+  boolean isTruncated() {
+    return truncated;
+  }
+
+  int remaining() {
+    return truncated ? 0 : limit - sb.length();
+  }
+
+  @Override
+  public LimitedAppendable append(CharSequence csq) {
+    CharSequence s = csq == null ? "null" : csq;
+    return append(s, 0, s.length());
+  }
+
+  @Override
+  public LimitedAppendable append(CharSequence csq, int start, int end) {
+    if (csq == null) {
+      return append("null", start, end);
+    }
+    if (!truncated) {
+      int room = limit - sb.length();
+      if (end - start <= room) {
+        sb.append(csq, start, end);
+      } else {
+        sb.append(csq, start, start + room);
+        truncate();
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public LimitedAppendable append(char c) {
+    if (!truncated) {
+      if (sb.length() < limit) {
+        sb.append(c);
+      } else {
+        truncate();
+      }
+    }
+    return this;
+  }
+
+  // Appends a value in the same format as String.valueOf(), except that arrays are shown by
+  // their contents like Arrays.deepToString().
+  LimitedAppendable appendValue(Object value) {
+    appendValue(value, 0);
+    return this;
+  }
+
+  private void appendValue(Object value, int depth) {
+    if (value instanceof CharSequence) {
+      append((CharSequence)value);
+    } else if (value instanceof Collection<?>) {
+      appendCollection((Collection<?>)value, depth);
+    } else if (value instanceof Map<?, ?>) {
+      appendMap((Map<?, ?>)value, depth);
+    } else if (value != null && value.getClass().isArray()) {
+      appendArray(value, depth);
+    } else {
+      append(String.valueOf(value));
+    }
+  }
+
+  // Same format as AbstractCollection.toString()
+  private void appendCollection(Collection<?> c, int depth) {
+    if (depth >= MAX_NESTING) {
+      append(TRUNCATED);
+      return;
+    }
+    append('[');
+    Iterator<?> it = c.iterator();
+    for (boolean first = true; it.hasNext() && !truncated; first = false) {
+      if (!first) {
+        append(", ");
+      }
+      Object item = it.next();
+      if (item == c) {
+        append("(this Collection)");
+      } else {
+        appendValue(item, depth + 1);
+      }
+    }
+    append(']');
+  }
+
+  // Same format as AbstractMap.toString()
+  private void appendMap(Map<?, ?> m, int depth) {
+    if (depth >= MAX_NESTING) {
+      append(TRUNCATED);
+      return;
+    }
+    append('{');
+    Iterator<? extends Map.Entry<?, ?>> it = m.entrySet().iterator();
+    for (boolean first = true; it.hasNext() && !truncated; first = false) {
+      if (!first) {
+        append(", ");
+      }
+      Map.Entry<?, ?> e = it.next();
+      if (e.getKey() == m) {
+        append("(this Map)");
+      } else {
+        appendValue(e.getKey(), depth + 1);
+      }
+      append('=');
+      if (e.getValue() == m) {
+        append("(this Map)");
+      } else {
+        appendValue(e.getValue(), depth + 1);
+      }
+    }
+    append('}');
+  }
+
+  // Same format as Arrays.deepToString(), which also handles arrays of primitive types
+  private void appendArray(Object array, int depth) {
+    if (depth >= MAX_NESTING) {
+      append(TRUNCATED);
+      return;
+    }
+    append('[');
+    int length = Array.getLength(array);
+    for (int i = 0; i < length && !truncated; i++) {
+      if (i > 0) {
+        append(", ");
+      }
+      Object item = Array.get(array, i);
+      if (item == array) {
+        append("[...]");
+      } else {
+        appendValue(item, depth + 1);
+      }
+    }
+    append(']');
+  }
+
+  private void truncate() {
+    int markerLength = Math.min(TRUNCATED.length(), limit);
+    sb.setLength(limit - markerLength);
+    sb.append(TRUNCATED, 0, markerLength);
+    truncated = true;
+  }
+
+  @Override
+  public String toString() {
+    return sb.toString();
+  }
+}
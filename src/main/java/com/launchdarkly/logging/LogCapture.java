@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A mechanism for capturing logger output in memory.
@@ -33,7 +36,10 @@ import java.util.Objects;
  */
 public final class LogCapture implements LDLogAdapter {
   private final List<Message> messages = new ArrayList<>();
-  private final Object messagesLock = new Object();
+  // A ReentrantLock is used rather than synchronized blocks and Object.wait(), because a
+  // virtual thread that blocks on those would also block the platform thread it runs on.
+  private final ReentrantLock messagesLock = new ReentrantLock();
+  private final Condition messageAdded = messagesLock.newCondition();
   
   LogCapture() {}
   
@@ -155,8 +161,11 @@ public final class LogCapture implements LDLogAdapter {
    * @return a copy of the messages
    */
   public List<Message> getMessages() {
-    synchronized (messagesLock) {
+    messagesLock.lock();
+    try {
       return new ArrayList<>(messages);
+    } finally {
+      messagesLock.unlock();
     }
   }
   
@@ -169,10 +178,13 @@ public final class LogCapture implements LDLogAdapter {
    */
   public List<String> getMessageStrings() {
     List<String> ret = new ArrayList<>();
-    synchronized (messagesLock) {
+    messagesLock.lock();
+    try {
       for (Message m: messages) {
         ret.add(m.getLevel().name() + ":" + m.getText());
       }
+    } finally {
+      messagesLock.unlock();
     }
     return ret;
   }
@@ -205,8 +217,9 @@ public final class LogCapture implements LDLogAdapter {
    * @return the next available log message, or null if none
    */
   public Message awaitMessage(LDLogLevel level, long timeoutMilliseconds) {
-    long deadline = System.currentTimeMillis() + timeoutMilliseconds;
-    synchronized (messagesLock) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMilliseconds);
+    messagesLock.lock();
+    try {
       for (;;) {
         for (int i = 0; i < messages.size(); i++) {
           Message m = messages.get(i);
@@ -215,17 +228,19 @@ public final class LogCapture implements LDLogAdapter {
             return m; 
           }
         }
-        long remainingTime = deadline - System.currentTimeMillis();
+        long remainingTime = deadline - System.nanoTime();
         if (remainingTime <= 0) {
           return null;
         }
         try {
-          messagesLock.wait(remainingTime);
+          messageAdded.awaitNanos(remainingTime);
         }
         catch (InterruptedException e) {
           return null;
         }
       }
+    } finally {
+      messagesLock.unlock();
     }
   }
   
@@ -264,9 +279,12 @@ public final class LogCapture implements LDLogAdapter {
     }
 
     private void addMessage(LDLogLevel level, String message) {
-      synchronized (messagesLock) {
+      messagesLock.lock();
+      try {
         messages.add(new Message(new Date(), name, level, message));
-        messagesLock.notifyAll();
+        messageAdded.signalAll();
+      } finally {
+        messagesLock.unlock();
       }
     }
 
@@ -0,0 +1,436 @@
+package com.launchdarkly.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A decorator that finds the log statements that produce the most output.
+ * <p>
+ * Calling {@link Logs#withHotspots(LDLogAdapter, int)} returns a {@link LogHotspots} that
+ * forwards all output to another adapter, while keeping track of the format strings that
+ * have been logged the most times and that have produced the most text. This shows which
+ * individual log statements are responsible for the log volume, rather than which loggers:
+ * for instance, that {@code "Received {} flags"} accounts for 40% of all the text written.
+ * <pre><code>
+ *     LogHotspots hotspots = Logs.withHotspots(Logs.toConsole(), 10);
+ *     // configure the SDK to use hotspots as its log adapter, then later...
+ *     for (LogHotspots.Statement s: hotspots.getTopByLength()) {
+ *       System.out.println(s.getFormat() + ": " + s.getLength());
+ *     }
+ * </code></pre>
+ * <p>
+ * Use {@link #reportPeriodically(long)} to have a summary written to the log at regular
+ * intervals.
+ * <p>
+ * Memory use is fixed no matter how many different format strings are logged. Counts are kept
+ * in a Count-Min Sketch, a table of counters in which each format string is counted in
+ * several places chosen by its hash; the estimate for a format string is the smallest of its
+ * counters, which can be higher than the true value if other format strings share all of
+ * those counters, but never lower. Only the top format strings themselves are remembered. The
+ * estimates are very close to exact for the statements that make up a large part of the
+ * output, which are the ones this is meant to find.
+ * <p>
+ * As with {@link LogMetrics}, this adapter does its own parameter substitution in order to
+ * measure the text, so the underlying adapter always receives messages that have already been
+ * formatted. Messages at levels that the underlying adapter has disabled are not counted. A
+ * message that is logged as an object other than a string, rather than with a format string,
+ * is counted under the format string "{}". Lengths are in characters.
+ *
+ * @since 1.2.0
+ */
+public final class LogHotspots implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  /**
+   * The logger name that {@link #reportPeriodically(long)} uses for its output.
+   */
+  public static final String REPORT_LOGGER_NAME = "com.launchdarkly.logging.LogHotspots";
+
+  static final int SKETCH_DEPTH = 4;
+  static final int SKETCH_WIDTH = 1024; // must be a power of two
+
+  private static final String OBJECT_MESSAGE_FORMAT = "{}";
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final AtomicLongArray countSketch = new AtomicLongArray(SKETCH_DEPTH * SKETCH_WIDTH);
+  private final AtomicLongArray lengthSketch = new AtomicLongArray(SKETCH_DEPTH * SKETCH_WIDTH);
+  private final StripedCounters totals = new StripedCounters(2);
+  private final TopStatements topByCount;
+  private final TopStatements topByLength;
+  private final ReentrantLock timerLock = new ReentrantLock();
+  private Timer timer; // protected by timerLock
+
+  LogHotspots(LDLogAdapter wrappedAdapter, int maxStatements) {
+    this.wrappedAdapter = wrappedAdapter;
+    this.topByCount = new TopStatements(Math.max(1, maxStatements));
+    this.topByLength = new TopStatements(Math.max(1, maxStatements));
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    return new ChannelImpl(wrappedAdapter.newChannel(name));
+  }
+
+  /**
+   * Returns the format strings that have been logged the most times, in descending order.
+   *
+   * @return up to the configured number of statements
+   */
+  public List<Statement> getTopByCount() {
+    return snapshot(topByCount, true);
+  }
+
+  /**
+   * Returns the format strings whose messages have produced the most text, in descending
+   * order.
+   *
+   * @return up to the configured number of statements
+   */
+  public List<Statement> getTopByLength() {
+    return snapshot(topByLength, false);
+  }
+
+  /**
+   * Returns the exact number of messages that have been logged through this adapter.
+   *
+   * @return the number of messages
+   */
+  public long getTotalCount() {
+    return totals.get(0);
+  }
+
+  /**
+   * Returns the exact total length, in characters, of all messages that have been logged
+   * through this adapter.
+   *
+   * @return the total message length
+   */
+  public long getTotalLength() {
+    return totals.get(1);
+  }
+
+  /**
+   * Returns a summary of the statements that have produced the most text.
+   * <p>
+   * The summary is several lines long. After a line with the totals, there is one line for
+   * each of the statements returned by {@link #getTopByLength()}, with its share of the total
+   * length, its estimated length and count, and its format string.
+   *
+   * @return a human-readable summary
+   */
+  public String getReport() {
+    long totalCount = getTotalCount(), totalLength = getTotalLength();
+    StringBuilder sb = new StringBuilder();
+    sb.append("Log hotspots: ").append(totalCount).append(" messages, ")
+      .append(totalLength).append(" characters");
+    for (Statement s: getTopByLength()) {
+      sb.append(System.lineSeparator())
+        .append(String.format(Locale.ROOT, "%5.1f%%", totalLength == 0 ? 0.0 : s.getLength() * 100.0 / totalLength))
+        .append(" of characters (").append(s.getLength()).append(" characters, ")
+        .append(s.getCount()).append(" messages): ").append(s.getFormat());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes the summary from {@link #getReport()} to the log at regular intervals.
+   * <p>
+   * The summary is written at {@link LDLogLevel#INFO} level, through the underlying adapter,
+   * with the logger name {@link #REPORT_LOGGER_NAME}; it is not itself counted. It is written
+   * from a daemon thread, which runs until {@link #close()} is called. Calling this method
+   * again replaces the previous interval.
+   *
+   * @param intervalMillis the time between summaries, in milliseconds
+   * @return this same instance
+   */
+  public LogHotspots reportPeriodically(long intervalMillis) {
+    final Channel reportChannel = wrappedAdapter.newChannel(REPORT_LOGGER_NAME);
+    long interval = Math.max(1, intervalMillis);
+    Timer newTimer = new Timer("LaunchDarkly-logging-hotspots", true);
+    newTimer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        writeReport(reportChannel);
+      }
+    }, interval, interval);
+    timerLock.lock();
+    try {
+      if (timer != null) {
+        timer.cancel();
+      }
+      timer = newTimer;
+    } finally {
+      timerLock.unlock();
+    }
+    return this;
+  }
+
+  void writeReport(Channel reportChannel) {
+    if (getTotalCount() != 0) {
+      reportChannel.log(LDLogLevel.INFO, getReport());
+    }
+  }
+
+  /**
+   * Flushes the adapter that this one forwards output to; see {@link LDLogAdapter.Lifecycle}.
+   *
+   * @param timeoutMillis the maximum time to wait, in milliseconds
+   * @return true if all output was written, or false if the timeout elapsed first
+   */
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  /**
+   * Stops the periodic summary, if any, and closes the adapter that this one forwards output
+   * to. The statistics can still be read afterward.
+   */
+  @Override
+  public void close() {
+    timerLock.lock();
+    try {
+      if (timer != null) {
+        timer.cancel();
+        timer = null;
+      }
+    } finally {
+      timerLock.unlock();
+    }
+    Logs.close(wrappedAdapter);
+  }
+
+  void record(String format, int length) {
+    int h1 = mix(format.hashCode());
+    int h2 = mix(h1 ^ 0x5bd1e995) | 1;
+    long count = Long.MAX_VALUE, total = Long.MAX_VALUE;
+    for (int row = 0; row < SKETCH_DEPTH; row++) {
+      int index = row * SKETCH_WIDTH + ((h1 + row * h2) & (SKETCH_WIDTH - 1));
+      count = Math.min(count, countSketch.incrementAndGet(index));
+      total = Math.min(total, lengthSketch.addAndGet(index, length));
+    }
+    totals.increment(0);
+    totals.add(1, length);
+    topByCount.offer(format, count);
+    topByLength.offer(format, total);
+  }
+
+  private long estimate(AtomicLongArray sketch, String format) {
+    int h1 = mix(format.hashCode());
+    int h2 = mix(h1 ^ 0x5bd1e995) | 1;
+    long ret = Long.MAX_VALUE;
+    for (int row = 0; row < SKETCH_DEPTH; row++) {
+      ret = Math.min(ret, sketch.get(row * SKETCH_WIDTH + ((h1 + row * h2) & (SKETCH_WIDTH - 1))));
+    }
+    return ret;
+  }
+
+  // The MurmurHash3 32-bit finalizer
+  private static int mix(int h) {
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    h *= 0xc2b2ae35;
+    h ^= (h >>> 16);
+    return h;
+  }
+
+  private List<Statement> snapshot(TopStatements top, final boolean byCount) {
+    List<Statement> ret = new ArrayList<>();
+    for (String format: top.formats()) {
+      ret.add(new Statement(format, estimate(countSketch, format), estimate(lengthSketch, format)));
+    }
+    Collections.sort(ret, new Comparator<Statement>() {
+      @Override
+      public int compare(Statement a, Statement b) {
+        int c = byCount ? Long.compare(b.count, a.count) : Long.compare(b.length, a.length);
+        return c != 0 ? c : a.format.compareTo(b.format);
+      }
+    });
+    return ret;
+  }
+
+  /**
+   * Estimated statistics for one format string.
+   */
+  public static final class Statement {
+    private final String format;
+    private final long count;
+    private final long length;
+
+    Statement(String format, long count, long length) {
+      this.format = format;
+      this.count = count;
+      this.length = length;
+    }
+
+    /**
+     * Returns the format string.
+     *
+     * @return the format string
+     */
+    public String getFormat() {
+      return format;
+    }
+
+    /**
+     * Returns the estimated number of messages that used this format string.
+     *
+     * @return the number of messages; this may be slightly higher than the true value
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the estimated total length, in characters, of the messages that used this
+     * format string.
+     *
+     * @return the total length; this may be slightly higher than the true value
+     */
+    public long getLength() {
+      return length;
+    }
+
+    @Override
+    public String toString() {
+      return "(" + format + ", count=" + count + ", length=" + length + ")";
+    }
+  }
+
+  // The format strings with the highest estimates for one measurement. A format string that
+  // is already tracked only needs its estimate updated, which does not take the lock; the lock
+  // is only needed when a format string that is not tracked has a higher estimate than the
+  // lowest one that is, which is rare once the top statements have been found.
+  private static final class TopStatements {
+    private final int capacity;
+    private final ConcurrentHashMap<String, AtomicLong> estimates = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long threshold; // lowest tracked estimate, or 0 if not full
+
+    TopStatements(int capacity) {
+      this.capacity = capacity;
+    }
+
+    void offer(String format, long estimate) {
+      AtomicLong tracked = estimates.get(format);
+      if (tracked != null) {
+        // Threads may store their estimates out of order; a slightly stale value only affects
+        // which statement is evicted.
+        tracked.set(estimate);
+        return;
+      }
+      if (estimate <= threshold) {
+        return;
+      }
+      lock.lock();
+      try {
+        // another thread may have added it since we checked
+        if (!estimates.containsKey(format)) {
+          add(format, estimate);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // Called with the lock held.
+    private void add(String format, long estimate) {
+      if (estimates.size() >= capacity) {
+        String lowest = null;
+        long lowestEstimate = Long.MAX_VALUE;
+        for (Map.Entry<String, AtomicLong> e: estimates.entrySet()) {
+          if (e.getValue().get() < lowestEstimate) {
+            lowest = e.getKey();
+            lowestEstimate = e.getValue().get();
+          }
+        }
+        if (estimate <= lowestEstimate) {
+          threshold = lowestEstimate;
+          return;
+        }
+        estimates.remove(lowest);
+      }
+      estimates.put(format, new AtomicLong(estimate));
+      if (estimates.size() >= capacity) {
+        long lowestEstimate = Long.MAX_VALUE;
+        for (AtomicLong value: estimates.values()) {
+          lowestEstimate = Math.min(lowestEstimate, value.get());
+        }
+        threshold = lowestEstimate;
+      }
+    }
+
+    List<String> formats() {
+      return new ArrayList<>(estimates.keySet());
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+
+    ChannelImpl(Channel wrappedChannel) {
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (isEnabled(level)) {
+        String text = message == null ? "" : message.toString();
+        wrappedChannel.log(level, text);
+        record(message instanceof String ? text : OBJECT_MESSAGE_FORMAT, text.length());
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (isEnabled(level)) {
+        write(level, format, SimpleFormat.format(format, param));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (isEnabled(level)) {
+        write(level, format, SimpleFormat.format(format, param1, param2));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (isEnabled(level)) {
+        write(level, format, SimpleFormat.format(format, params));
+      }
+    }
+
+    // The text has already been formatted, so it is passed on as the parameter of a "{}"
+    // format; if it were the format itself, any "{}" in the text would be treated as a
+    // placeholder by adapters such as LDSLF4J.
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        String text = SimpleFormat.format(format, params);
+        wrappedChannel.log(level, throwable, "{}", text);
+        record(format, text.length());
+      }
+    }
+
+    private void write(LDLogLevel level, String format, String text) {
+      wrappedChannel.log(level, text);
+      record(format, text.length());
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package com.launchdarkly.logging;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A decorator that measures how much log output is being produced and how long it takes.
+ * <p>
+ * Calling {@link Logs#withMetrics(LDLogAdapter)} returns a {@link LogMetrics} that forwards
+ * all output to another adapter, while counting the messages that are written for each
+ * logger name and level, the total length of the message text, and the time taken by each
+ * call. Use {@link #getSnapshot()} to read the current values, or {@link #registerMBean(String)}
+ * to make them available through JMX.
+ * <pre><code>
+ *     LogMetrics metrics = Logs.withMetrics(Logs.toConsole());
+ *     // configure the SDK to use metrics as its log adapter, then later...
+ *     long warnings = metrics.getSnapshot().getCount(LDLogLevel.WARN);
+ * </code></pre>
+ * <p>
+ * To know the length of each message, this adapter does its own parameter substitution, so
+ * the underlying adapter always receives messages that have already been formatted. Messages
+ * at levels that the underlying adapter has disabled are not formatted and are not counted.
+ * <p>
+ * Counters are spread across several memory locations so that measuring does not make
+ * threads that are logging at the same time wait for each other.
+ *
+ * @since 1.2.0
+ */
+public final class LogMetrics implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  static final int HISTOGRAM_BUCKETS = 64;
+
+  private static final LDLogLevel[] LEVELS = LDLogLevel.values();
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final ConcurrentHashMap<String, StripedCounters> loggerCounts = new ConcurrentHashMap<>();
+  private final StripedCounters renderedLength = new StripedCounters(1);
+  private final StripedCounters latencyHistogram = new StripedCounters(HISTOGRAM_BUCKETS);
+  private volatile Runnable unregisterAction;
+
+  LogMetrics(LDLogAdapter wrappedAdapter) {
+    this.wrappedAdapter = wrappedAdapter;
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    StripedCounters counts = loggerCounts.get(name);
+    if (counts == null) {
+      StripedCounters newCounts = new StripedCounters(LEVELS.length);
+      counts = loggerCounts.putIfAbsent(name, newCounts);
+      if (counts == null) {
+        counts = newCounts;
+      }
+    }
+    return new ChannelImpl(wrappedAdapter.newChannel(name), counts);
+  }
+
+  /**
+   * Returns the current values of all measurements.
+   *
+   * @return a snapshot of the metrics
+   */
+  public Snapshot getSnapshot() {
+    Map<String, long[]> counts = new HashMap<>();
+    for (Map.Entry<String, StripedCounters> e: loggerCounts.entrySet()) {
+      long[] values = new long[LEVELS.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = e.getValue().get(i);
+      }
+      counts.put(e.getKey(), values);
+    }
+    long[] histogram = new long[HISTOGRAM_BUCKETS];
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = latencyHistogram.get(i);
+    }
+    return new Snapshot(counts, renderedLength.get(0), histogram);
+  }
+
+  /**
+   * Makes the metrics available as an MBean in the platform MBean server.
+   * <p>
+   * The MBean has attributes for the message count at each level, the total message length,
+   * and several latency percentiles, plus a count attribute for each logger name and level.
+   * This requires the {@code java.lang.management} API, so it is not available in Android.
+   *
+   * @param objectName the JMX object name to register, such as
+   *   {@code "com.launchdarkly:type=LogMetrics"}
+   * @throws IllegalStateException if the MBean could not be registered
+   */
+  public void registerMBean(String objectName) {
+    // LogMetricsMBean is loaded by reflection, because it uses JVM-only APIs and is left out
+    // of the Android build.
+    try {
+      unregisterAction = (Runnable)Class.forName(LogMetrics.class.getPackage().getName() + ".LogMetricsMBean")
+          .getDeclaredMethod("register", LogMetrics.class, String.class).invoke(null, this, objectName);
+    } catch (Exception e) {
+      throw new IllegalStateException("could not register log metrics MBean",
+          e instanceof InvocationTargetException ? e.getCause() : e);
+    }
+  }
+
+  /**
+   * Removes the MBean that was added by {@link #registerMBean(String)}, if any.
+   */
+  public void unregisterMBean() {
+    Runnable action = unregisterAction;
+    if (action != null) {
+      unregisterAction = null;
+      action.run();
+    }
+  }
+
+  /**
+   * Flushes the adapter that this one forwards output to; see {@link LDLogAdapter.Lifecycle}.
+   *
+   * @param timeoutMillis the maximum time to wait, in milliseconds
+   * @return true if all output was written, or false if the timeout elapsed first
+   */
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  /**
+   * Closes the adapter that this one forwards output to, and removes the MBean that was added
+   * by {@link #registerMBean(String)}, if any. The metrics can still be read afterward.
+   */
+  @Override
+  public void close() {
+    unregisterMBean();
+    Logs.close(wrappedAdapter);
+  }
+
+  static int histogramBucket(long nanos) {
+    return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+  }
+
+  /**
+   * A point-in-time copy of the values measured by {@link LogMetrics}.
+   */
+  public static final class Snapshot {
+    private final Map<String, long[]> loggerCounts;
+    private final long[] levelCounts;
+    private final long renderedLength;
+    private final long[] latencyHistogram;
+
+    Snapshot(Map<String, long[]> loggerCounts, long renderedLength, long[] latencyHistogram) {
+      this.loggerCounts = loggerCounts;
+      this.renderedLength = renderedLength;
+      this.latencyHistogram = latencyHistogram;
+      this.levelCounts = new long[LEVELS.length];
+      for (long[] counts: loggerCounts.values()) {
+        for (int i = 0; i < counts.length; i++) {
+          levelCounts[i] += counts[i];
+        }
+      }
+    }
+
+    /**
+     * Returns the number of messages written at the specified level by all loggers.
+     *
+     * @param level a log level
+     * @return the number of messages
+     */
+    public long getCount(LDLogLevel level) {
+      return levelCounts[level.ordinal()];
+    }
+
+    /**
+     * Returns the number of messages written at the specified level by one logger.
+     *
+     * @param loggerName the logger name
+     * @param level a log level
+     * @return the number of messages, or zero if there is no such logger
+     */
+    public long getCount(String loggerName, LDLogLevel level) {
+      long[] counts = loggerCounts.get(loggerName);
+      return counts == null ? 0 : counts[level.ordinal()];
+    }
+
+    /**
+     * Returns the names of all loggers that have been created with this adapter.
+     *
+     * @return a set of logger names
+     */
+    public Set<String> getLoggerNames() {
+      return Collections.unmodifiableSet(loggerCounts.keySet());
+    }
+
+    /**
+     * Returns the total number of messages written at all levels by all loggers.
+     *
+     * @return the number of messages
+     */
+    public long getTotalCount() {
+      long total = 0;
+      for (long c: levelCounts) {
+        total += c;
+      }
+      return total;
+    }
+
+    /**
+     * Returns the total length, in characters, of the text of all messages written.
+     *
+     * @return the total message length
+     */
+    public long getRenderedLength() {
+      return renderedLength;
+    }
+
+    /**
+     * Returns the call latency histogram.
+     * <p>
+     * Element {@code i} of the array is the number of calls that took at least 2<sup>i</sup>
+     * nanoseconds and less than 2<sup>i+1</sup> nanoseconds; element 0 also includes calls
+     * that took less than one nanosecond.
+     *
+     * @return a copy of the histogram counts
+     */
+    public long[] getLatencyHistogram() {
+      return latencyHistogram.clone();
+    }
+
+    /**
+     * Returns an estimate of a latency percentile.
+     * <p>
+     * Because latencies are only recorded to the nearest power of two, this is the upper
+     * bound of the histogram bucket that contains the requested percentile.
+     *
+     * @param percentile a value from 0 to 100
+     * @return the latency in nanoseconds, or zero if nothing has been logged
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+      long total = 0;
+      for (long c: latencyHistogram) {
+        total += c;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long threshold = (long)Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+      long seen = 0;
+      int bucket = 0;
+      for (; bucket < latencyHistogram.length - 1; bucket++) {
+        seen += latencyHistogram[bucket];
+        if (seen >= threshold && seen > 0) {
+          break;
+        }
+      }
+      return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+    private final StripedCounters counts;
+
+    ChannelImpl(Channel wrappedChannel, StripedCounters counts) {
+      this.wrappedChannel = wrappedChannel;
+      this.counts = counts;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (isEnabled(level)) {
+        long startTime = System.nanoTime();
+        write(startTime, level, message == null ? "" : message.toString());
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (isEnabled(level)) {
+        long startTime = System.nanoTime();
+        write(startTime, level, SimpleFormat.format(format, param));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (isEnabled(level)) {
+        long startTime = System.nanoTime();
+        write(startTime, level, SimpleFormat.format(format, param1, param2));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (isEnabled(level)) {
+        long startTime = System.nanoTime();
+        write(startTime, level, SimpleFormat.format(format, params));
+      }
+    }
+
+    // The text has already been formatted, so it is passed on as the parameter of a "{}"
+    // format; if it were the format itself, any "{}" in the text would be treated as a
+    // placeholder by adapters such as LDSLF4J.
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level)) {
+        long startTime = System.nanoTime();
+        String text = SimpleFormat.format(format, params);
+        wrappedChannel.log(level, throwable, "{}", text);
+        record(startTime, level, text);
+      }
+    }
+
+    private void write(long startTime, LDLogLevel level, String text) {
+      wrappedChannel.log(level, text);
+      record(startTime, level, text);
+    }
+
+    private void record(long startTime, LDLogLevel level, String text) {
+      long elapsed = System.nanoTime() - startTime;
+      counts.increment(level.ordinal());
+      renderedLength.add(0, text.length());
+      latencyHistogram.increment(histogramBucket(elapsed));
+    }
+  }
+}
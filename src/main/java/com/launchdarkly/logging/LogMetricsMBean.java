@@ -0,0 +1,153 @@
+package com.launchdarkly.logging;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * JMX view of a {@link LogMetrics} instance; see {@link LogMetrics#registerMBean(String)}.
+ * <p>
+ * This is kept separate from {@link LogMetrics} so that the {@code javax.management} classes,
+ * which do not exist in Android, are only loaded if an application asks for the MBean.
+ * {@link LogMetrics} only refers to this class by reflection, and the Android build leaves
+ * it out.
+ * <p>
+ * The per-logger attributes are named "Count.{logger name}.{LEVEL}". Since loggers can be
+ * created at any time, the attribute list is recomputed each time {@link #getMBeanInfo()}
+ * is called.
+ */
+final class LogMetricsMBean implements DynamicMBean {
+  private static final String COUNT_PREFIX = "Count.";
+  private static final String RENDERED_LENGTH = "RenderedLength";
+  private static final String[] PERCENTILE_NAMES = { "LatencyP50Nanos", "LatencyP90Nanos", "LatencyP99Nanos" };
+  private static final double[] PERCENTILES = { 50, 90, 99 };
+
+  private final LogMetrics metrics;
+
+  private LogMetricsMBean(LogMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  // Returns an action that will unregister the MBean.
+  static Runnable register(LogMetrics metrics, String objectName) throws JMException {
+    final ObjectName name = new ObjectName(objectName);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new LogMetricsMBean(metrics), name);
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+          // the MBean was already removed by some other means; nothing else to do
+        }
+      }
+    };
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    LogMetrics.Snapshot snapshot = metrics.getSnapshot();
+    Object value = getAttribute(snapshot, attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  private static Object getAttribute(LogMetrics.Snapshot snapshot, String attribute) {
+    if (attribute.equals(RENDERED_LENGTH)) {
+      return snapshot.getRenderedLength();
+    }
+    for (int i = 0; i < PERCENTILE_NAMES.length; i++) {
+      if (attribute.equals(PERCENTILE_NAMES[i])) {
+        return snapshot.getLatencyPercentileNanos(PERCENTILES[i]);
+      }
+    }
+    for (LDLogLevel level: LDLogLevel.values()) {
+      if (attribute.equals(levelAttributeName(level))) {
+        return snapshot.getCount(level);
+      }
+      if (attribute.startsWith(COUNT_PREFIX) && attribute.endsWith("." + level.name())) {
+        String loggerName = attribute.substring(COUNT_PREFIX.length(),
+            attribute.length() - level.name().length() - 1);
+        if (snapshot.getLoggerNames().contains(loggerName)) {
+          return snapshot.getCount(loggerName, level);
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    LogMetrics.Snapshot snapshot = metrics.getSnapshot();
+    AttributeList ret = new AttributeList();
+    for (String a: attributes) {
+      Object value = getAttribute(snapshot, a);
+      if (value != null) {
+        ret.add(new Attribute(a, value));
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("log metrics attributes are read-only");
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+    // This is how the JMX documentation says to report an operation that does not exist.
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    List<MBeanAttributeInfo> attrs = new ArrayList<>();
+    for (LDLogLevel level: loggedLevels()) {
+      attrs.add(longAttribute(levelAttributeName(level), "Messages written at " + level.name() + " level"));
+    }
+    attrs.add(longAttribute(RENDERED_LENGTH, "Total length of message text in characters"));
+    for (String name: PERCENTILE_NAMES) {
+      attrs.add(longAttribute(name, "Estimated call latency percentile"));
+    }
+    for (String loggerName: metrics.getSnapshot().getLoggerNames()) {
+      for (LDLogLevel level: loggedLevels()) {
+        attrs.add(longAttribute(COUNT_PREFIX + loggerName + "." + level.name(),
+            "Messages written by this logger at this level"));
+      }
+    }
+    return new MBeanInfo(getClass().getName(), "LaunchDarkly logging metrics",
+        attrs.toArray(new MBeanAttributeInfo[attrs.size()]), null, new MBeanOperationInfo[0], null);
+  }
+
+  private static LDLogLevel[] loggedLevels() {
+    return new LDLogLevel[] { LDLogLevel.DEBUG, LDLogLevel.INFO, LDLogLevel.WARN, LDLogLevel.ERROR };
+  }
+
+  private static String levelAttributeName(LDLogLevel level) {
+    String name = level.name();
+    return name.charAt(0) + name.substring(1).toLowerCase() + "Count";
+  }
+
+  private static MBeanAttributeInfo longAttribute(String name, String description) {
+    return new MBeanAttributeInfo(name, "long", description, true, false, false);
+  }
+}
@@ -0,0 +1,269 @@
+package com.launchdarkly.logging;
+
+import com.launchdarkly.logging.LDLogAdapter.Channel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A unit of work, such as a request, whose low-level log output is held back unless the work
+ * turns out to have a problem.
+ * <p>
+ * Calling {@link LDLogger#beginScope()} returns a {@link LogScope}. Messages written through
+ * {@link #getLogger()}, or through any logger derived from it with {@link LDLogger#subLogger(String)},
+ * are kept in memory instead of being written. If the scope then sees a message at
+ * {@link LDLogLevel#WARN} level or higher, or if {@link #fail()} is called, all of the kept
+ * messages are written in their original order and any further output from the scope is
+ * written immediately. If the scope is closed without either of those things happening, the
+ * kept messages are discarded.
+ * <pre><code>
+ *     try (LogScope scope = logger.beginScope()) {
+ *       LDLogger requestLogger = scope.getLogger();
+ *       requestLogger.debug("handling request {}", requestId);
+ *       try {
+ *         handleRequest(requestLogger);
+ *       } catch (Exception e) {
+ *         scope.fail(); // writes the debug output above
+ *         throw e;
+ *       }
+ *     }
+ * </code></pre>
+ * <p>
+ * Parameters of kept messages are not converted to strings unless the messages are written,
+ * so they should not be modified after they have been logged. The number of messages kept is
+ * bounded; if it is exceeded, the oldest ones are dropped.
+ * <p>
+ * Whether a level is enabled is still determined by the underlying adapter. For instance, if
+ * the adapter has been configured with {@link Logs#level(LDLogAdapter, LDLogLevel)} to
+ * allow only {@link LDLogLevel#INFO} and higher, debug messages are never kept.
+ *
+ * @since 1.2.0
+ */
+public final class LogScope implements AutoCloseable {
+  /**
+   * The default maximum number of messages that a scope will keep.
+   */
+  public static final int DEFAULT_MAX_MESSAGES = 1000;
+
+  private static final LDLogLevel TRIGGER_LEVEL = LDLogLevel.WARN;
+  private static final int WITH_PARAMS_ARRAY = -1; // see BufferedMessage
+  private static final int WITH_THROWABLE = -2; // see BufferedMessage
+
+  private final LDLogger logger;
+  private final int maxMessages;
+  private final ArrayDeque<BufferedMessage> messages = new ArrayDeque<>();
+  private final ReentrantLock messagesLock = new ReentrantLock();
+  private volatile boolean passThrough;
+  private boolean failed; // guarded by messagesLock
+
+  LogScope(String name, LDLogAdapter adapter, String samplingKey, int maxMessages) {
+    this.maxMessages = maxMessages < 1 ? 1 : maxMessages;
+    this.logger = new LDLogger(name, new AdapterImpl(adapter), samplingKey);
+  }
+
+  /**
+   * Returns the logger for this scope.
+   * <p>
+   * This has the same name as the logger that the scope was created from. Loggers obtained
+   * from it with {@link LDLogger#subLogger(String)} belong to the same scope.
+   *
+   * @return the scope's logger
+   */
+  public LDLogger getLogger() {
+    return logger;
+  }
+
+  /**
+   * Marks the scope as failed.
+   * <p>
+   * All messages that the scope has kept so far are written immediately, and any further
+   * output from the scope is written without being kept.
+   */
+  public void fail() {
+    messagesLock.lock();
+    try {
+      failed = true;
+      writeAllAndPassThrough();
+    } finally {
+      messagesLock.unlock();
+    }
+  }
+
+  /**
+   * Returns true if the scope's output is being written, either because {@link #fail()} was
+   * called or because a message at {@link LDLogLevel#WARN} level or higher was logged.
+   *
+   * @return true if the scope has failed
+   */
+  public boolean isFailed() {
+    messagesLock.lock();
+    try {
+      return failed;
+    } finally {
+      messagesLock.unlock();
+    }
+  }
+
+  /**
+   * Ends the scope.
+   * <p>
+   * If the scope has not failed, all kept messages are discarded. Any output that is logged
+   * through the scope's loggers after this point is written immediately.
+   */
+  @Override
+  public void close() {
+    messagesLock.lock();
+    try {
+      messages.clear();
+      passThrough = true;
+    } finally {
+      messagesLock.unlock();
+    }
+  }
+
+  // Called with messagesLock held
+  private void writeAllAndPassThrough() {
+    if (passThrough) {
+      return;
+    }
+    for (BufferedMessage m: messages) {
+      m.write();
+    }
+    messages.clear();
+    passThrough = true;
+  }
+
+  // Returns true if the message was kept, or false if it should be written now. If the
+  // message's level is high enough to trigger output, everything kept so far is written
+  // first, while still holding the lock so that the original order is preserved.
+  private boolean keep(Channel channel, LDLogLevel level, int paramCount, String format,
+      Object param1, Object param2, Object[] params, Throwable throwable) {
+    messagesLock.lock();
+    try {
+      if (passThrough) {
+        return false;
+      }
+      if (level.compareTo(TRIGGER_LEVEL) >= 0) {
+        failed = true;
+        writeAllAndPassThrough();
+        return false;
+      }
+      if (messages.size() >= maxMessages) {
+        messages.removeFirst();
+      }
+      messages.addLast(new BufferedMessage(channel, level, paramCount, format, param1, param2, params, throwable));
+      return true;
+    } finally {
+      messagesLock.unlock();
+    }
+  }
+
+  private static final class BufferedMessage {
+    private final Channel channel;
+    private final LDLogLevel level;
+    private final int paramCount;
+    private final String format;
+    private final Object param1;
+    private final Object param2;
+    private final Object[] params;
+    private final Throwable throwable;
+
+    // A paramCount of 0 means param1 is a simple message; 1 or 2 means param1 and param2
+    // are the parameters; WITH_PARAMS_ARRAY means params is the parameter array; and
+    // WITH_THROWABLE means the message was logged with an exception, which may be null, and
+    // params is the parameter array.
+    BufferedMessage(Channel channel, LDLogLevel level, int paramCount, String format,
+        Object param1, Object param2, Object[] params, Throwable throwable) {
+      this.channel = channel;
+      this.level = level;
+      this.paramCount = paramCount;
+      this.format = format;
+      this.param1 = param1;
+      this.param2 = param2;
+      this.params = params;
+      this.throwable = throwable;
+    }
+
+    void write() {
+      switch (paramCount) {
+      case 0:
+        channel.log(level, param1);
+        break;
+      case 1:
+        channel.log(level, format, param1);
+        break;
+      case 2:
+        channel.log(level, format, param1, param2);
+        break;
+      case WITH_PARAMS_ARRAY:
+        channel.log(level, format, params);
+        break;
+      case WITH_THROWABLE:
+        channel.log(level, throwable, format, params);
+        break;
+      }
+    }
+  }
+
+  private final class AdapterImpl implements LDLogAdapter {
+    private final LDLogAdapter wrappedAdapter;
+
+    AdapterImpl(LDLogAdapter wrappedAdapter) {
+      this.wrappedAdapter = wrappedAdapter;
+    }
+
+    @Override
+    public Channel newChannel(String name) {
+      return new ChannelImpl(wrappedAdapter.newChannel(name));
+    }
+  }
+
+  private final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+
+    ChannelImpl(Channel wrappedChannel) {
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (isEnabled(level) && (passThrough || !keep(wrappedChannel, level, 0, null, message, null, null, null))) {
+        wrappedChannel.log(level, message);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (isEnabled(level) && (passThrough || !keep(wrappedChannel, level, 1, format, param, null, null, null))) {
+        wrappedChannel.log(level, format, param);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (isEnabled(level) && (passThrough || !keep(wrappedChannel, level, 2, format, param1, param2, null, null))) {
+        wrappedChannel.log(level, format, param1, param2);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (isEnabled(level) && (passThrough || !keep(wrappedChannel, level, WITH_PARAMS_ARRAY, format, null, null, params, null))) {
+        wrappedChannel.log(level, format, params);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (isEnabled(level) &&
+          (passThrough || !keep(wrappedChannel, level, WITH_THROWABLE, format, null, null, params, throwable))) {
+        wrappedChannel.log(level, throwable, format, params);
+      }
+    }
+  }
+}
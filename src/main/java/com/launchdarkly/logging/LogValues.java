@@ -46,6 +46,36 @@ public abstract class LogValues {
   public static Object defer(StringProvider stringProvider) {
     return new DeferImpl(stringProvider);
   }
+
+  /**
+   * Same as {@link #defer(StringProvider)}, but the method or lambda is called at most once.
+   * <p>
+   * The object returned by {@link #defer(StringProvider)} calls the method every time its
+   * {@code toString()} is called. That can happen more than once for a single log message:
+   * for instance, if the message is sent to several destinations with
+   * {@link Logs#toMultiple(LDLogAdapter...)}, or if a logging framework converts the
+   * parameter to a string more than once. If the value is expensive to compute, use this
+   * method instead; the first call to {@code toString()} computes the value and remembers
+   * it, and later calls return the same string. As with {@link #defer(StringProvider)},
+   * nothing is computed if the message is never logged.
+   * <p>
+   * This is thread-safe: if several threads call {@code toString()} at once, only one of them
+   * calls the method, and the others wait for it. The returned object should be created for
+   * each log message, rather than stored and reused, unless the value can never change.
+   *
+   * <pre><code>
+   *   // Here, computeJsonData is called at most once, even with several destinations
+   *   logger.debug("The JSON data is: {}", LogValues.deferOnce(() -&gt; computeJsonData()));
+   * </code></pre>
+   *
+   * @param stringProvider a method or lambda that returns a string
+   * @return an object that calls {@code stringProvider} the first time {@code toString} is
+   *   called
+   * @since 1.2.0
+   */
+  public static Object deferOnce(StringProvider stringProvider) {
+    return new DeferOnceImpl(stringProvider);
+  }
   
   /**
    * Returns an object whose {@code toString()} method returns only the class name and
@@ -71,7 +101,8 @@ public abstract class LogValues {
    * Calling {@code toString()} on the object returned by this method returns the
    * exception's stacktrace as a string. This string is not constructed unless
    * {@code toString()} is called, so writing exceptions to the log in this way incurs
-   * very little overhead if logging is not enabled for the specified log level.
+   * very little overhead if logging is not enabled for the specified log level. It is
+   * constructed at most once, even if {@code toString()} is called more than once.
    * <pre><code>
    *   try { ... }
    *   catch (Exception e) {
@@ -83,16 +114,96 @@ public abstract class LogValues {
    * @return an object whose {@code toString()} method provides a stacktrace
    */
   public static Object exceptionTrace(final Throwable e) {
-    return e == null ? null : defer(new StringProvider() {
+    return e == null ? null : deferOnce(new StringProvider() {
       @Override
       public String get() {
-        StringWriter sw = new StringWriter();
-        e.printStackTrace(new PrintWriter(sw));
-        return sw.toString();
+        return stackTrace(e);
       }
     });    
   }
+
+  /**
+   * Returns an object that lazily constructs an exception stacktrace in a configurable
+   * format, reusing the rendered text if the same stacktrace is logged repeatedly.
+   * <p>
+   * This is like {@link #exceptionTrace(Throwable)}, but the stacktrace is rendered according
+   * to the options in the {@link StackTraceFormat}, which also holds a cache of recently
+   * rendered stacktraces. The text is computed the first time {@code toString()} is called on
+   * the returned object, and the same text is returned for any later calls.
+   * <pre><code>
+   *   static final StackTraceFormat TRACE_FORMAT = StackTraceFormat.defaults().maxDepth(50);
+   *
+   *   try { ... }
+   *   catch (Exception e) {
+   *     logger.debug("{}", LogValues.exceptionTrace(e, TRACE_FORMAT));
+   * </code></pre>
+   *
+   * @param e an exception
+   * @param format the stacktrace format and cache
+   * @return an object whose {@code toString()} method provides a stacktrace, or null if
+   *   {@code e} is null
+   * @since 1.2.0
+   */
+  public static Object exceptionTrace(final Throwable e, final StackTraceFormat format) {
+    // The value must only be rendered once, since rendering the same trace a second time
+    // could produce a back-reference to the first one.
+    return e == null ? null : deferOnce(new StringProvider() {
+      @Override
+      public String get() {
+        return format.render(e);
+      }
+    });
+  }
+
+  // Used by the default implementation of LDLogAdapter.Channel.log(LDLogLevel, Throwable,
+  // String, Object...): the formatted message, followed by the stacktrace on the next lines.
+  static Object messageWithTrace(final String format, final Object[] params, final Throwable e) {
+    return deferOnce(new StringProvider() {
+      @Override
+      public String get() {
+        String trace = stackTrace(e);
+        String lineSeparator = System.lineSeparator();
+        if (trace.endsWith(lineSeparator)) {
+          trace = trace.substring(0, trace.length() - lineSeparator.length());
+        }
+        return SimpleFormat.format(format, params) + lineSeparator + trace;
+      }
+    });
+  }
+
+  private static String stackTrace(Throwable e) {
+    StringWriter sw = new StringWriter();
+    e.printStackTrace(new PrintWriter(sw));
+    return sw.toString();
+  }
   
+  // This synchronizes on the object itself, rather than using a ReentrantLock as we do
+  // elsewhere, so that each value is only one small object. The monitor is only contended if
+  // several threads write the same value at once, and is only held while the provider runs.
+  private static final class DeferOnceImpl {
+    private StringProvider stringProvider; // protected by this; null once the value is computed
+    private volatile boolean computed;
+    private String value; // published by the write to computed
+
+    DeferOnceImpl(StringProvider stringProvider) {
+      this.stringProvider = stringProvider;
+    }
+
+    @Override
+    public String toString() {
+      if (!computed) {
+        synchronized (this) {
+          if (!computed) {
+            value = stringProvider.get();
+            stringProvider = null; // so anything it refers to can be garbage-collected
+            computed = true;
+          }
+        }
+      }
+      return value;
+    }
+  }
+
   private static final class DeferImpl {
     private final StringProvider stringProvider;
     
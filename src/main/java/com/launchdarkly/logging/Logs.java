@@ -1,6 +1,11 @@
 package com.launchdarkly.logging;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Factory methods for the basic logging implementations in this package.
@@ -87,6 +92,28 @@ public abstract class Logs {
     return toStream(System.err);
   }
   
+  /**
+   * A simple logging implementation that appends to a file.
+   * <p>
+   * The file is opened by this method and stays open. Text is written in UTF-8, with the
+   * platform's line separator after each line. When lines are written in batches, as they are
+   * by {@link SimpleLogging#async(int)}, each batch is written with a single write rather than
+   * one write per line. As with {@link #toStream(PrintStream)}, errors that
+   * happen while writing are ignored.
+   * <p>
+   * By default, all logging is enabled including {@link LDLogLevel#DEBUG} level. 
+   * To filter by level, use {@link #level(LDLogAdapter, LDLogLevel)}. You can also
+   * use {@link SimpleLogging} methods for additional configuration.
+   *
+   * @param file the file to write to; it is created if it does not exist
+   * @return a log adapter
+   * @throws IOException if the file cannot be opened
+   * @since 1.2.0
+   */
+  public static SimpleLogging toFile(File file) throws IOException {
+    return toMethod(new FileLineWriter(file));
+  }
+
   /**
    * A simple logging implementation that writes to any {@code PrintStream}.
    * <p>
@@ -133,10 +160,48 @@ public abstract class Logs {
    * In Android, using this method requires Android API 26 or higher.
    *
    * @return a log adapter
+   * @see #toJavaUtilLoggingWithCachedLevels()
    */
   public static LDLogAdapter toJavaUtilLogging() {
     return LDJavaUtilLogging.INSTANCE;
   }
+
+  /**
+   * The same as {@link #toJavaUtilLogging()}, except that each logger remembers the effective
+   * level of its {@code java.util.logging.Logger} instead of asking for it every time.
+   * <p>
+   * This makes checks for disabled levels faster on platforms where
+   * {@code Logger.isLoggable} is expensive, but a change of level is not always seen right
+   * away. In Java 9 and later, the remembered levels are updated automatically whenever the
+   * {@code java.util.logging} configuration is reloaded, for instance with
+   * {@code LogManager.readConfiguration()}. If your application changes levels by calling
+   * {@code Logger.setLevel} directly, or if it is running in Java 8 or Android, it must call
+   * {@link #refreshJavaUtilLoggingLevels()} afterward; until then, the old levels are used.
+   * If that is not practical, use {@link #toJavaUtilLogging()}.
+   * <p>
+   * In Android, using this method requires Android API 26 or higher.
+   *
+   * @return a log adapter
+   * @since 1.2.0
+   */
+  public static LDLogAdapter toJavaUtilLoggingWithCachedLevels() {
+    return LDJavaUtilLogging.CACHED_LEVELS_INSTANCE;
+  }
+
+  /**
+   * Tells loggers that use {@link #toJavaUtilLoggingWithCachedLevels()} to look up their
+   * {@code java.util.logging} levels again.
+   * <p>
+   * This is only needed if levels are changed by calling {@code Logger.setLevel} directly, or
+   * if the configuration is changed in Java 8 or Android; see
+   * {@link #toJavaUtilLoggingWithCachedLevels()}. It has no effect on loggers that use
+   * {@link #toJavaUtilLogging()}, since those always see the current levels.
+   *
+   * @since 1.2.0
+   */
+  public static void refreshJavaUtilLoggingLevels() {
+    LDJavaUtilLogging.refreshLevels();
+  }
   
   /**
    * A logging implementation that delegates to any number of destinations.
@@ -156,9 +221,414 @@ public abstract class Logs {
   public static LDLogAdapter toMultiple(LDLogAdapter... adapters) {
     return (adapters == null || adapters.length == 0) ? none() : new MultiLogging(adapters);
   }
-  
-  static final class StreamLineWriter implements SimpleLogging.LineWriter {
+
+  /**
+   * Records low-level log output in memory, and only writes it if an error is logged.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}. Messages at
+   * {@code minimumLevel} or higher are forwarded to the underlying adapter as usual. Messages
+   * below that level are not written; instead, the most recent {@code capacity} of them are
+   * kept in a circular buffer. When a message at {@link LDLogLevel#ERROR} level is logged on
+   * any channel of the adapter, the buffered messages are first written to the underlying
+   * adapter in their original order, so that the error is preceded by the detail that led
+   * up to it.
+   * <pre><code>
+   *     // Normally write only WARN and ERROR messages, but when there is an error, also
+   *     // write the last 1000 DEBUG and INFO messages that came before it
+   *     LDLogAdapter logging = Logs.debugRecorder(Logs.toConsole(), LDLogLevel.WARN, 1000);
+   * </code></pre>
+   * <p>
+   * The buffer is allocated outside of the Java heap when the adapter is created, and
+   * recording a message does not allocate any long-lived objects. Each buffered message is
+   * limited to 252 characters; longer messages are truncated.
+   * <p>
+   * Messages are only recorded if the underlying adapter has that level enabled, so if you
+   * use this with an adapter that has its own filtering, such as {@link LDSLF4J}, that adapter
+   * must be configured to allow the lower levels.
+   *
+   * @param adapter a log adapter
+   * @param minimumLevel the lowest log level that should be written immediately; null
+   *   defaults to {@link LDLogLevel#WARN}
+   * @param capacity the maximum number of messages to keep in the buffer
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter debugRecorder(LDLogAdapter adapter, LDLogLevel minimumLevel, int capacity) {
+    return new DebugRecorder(adapter, minimumLevel, capacity);
+  }
+
+  /**
+   * Limits the length of log messages and of each parameter in them.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}. It performs the
+   * parameter substitution defined by {@link SimpleFormat} itself, and passes the resulting
+   * text to the underlying adapter. Any parameter whose text is longer than
+   * {@code maxParameterLength} characters is cut short, and so is the whole message if it is
+   * longer than {@code maxMessageLength}; the last three characters of shortened text are
+   * replaced with "...".
+   * <p>
+   * The limits are enforced while the message is being built, so that logging a very large
+   * value costs no more than logging a value of the maximum length. Strings and other
+   * {@code CharSequence}s are only copied up to the limit; arrays, collections, and maps are
+   * rendered one element at a time, and no more elements are visited once the limit is
+   * reached. Arrays are shown by their contents, as with {@code Arrays.deepToString}, and
+   * collections and maps in the same format as their standard {@code toString()}. Any other
+   * object's {@code toString()} method is still called, but its result is not copied beyond
+   * the limit.
+   * <pre><code>
+   *     // Show at most 200 characters of any parameter, and 2000 of any message
+   *     LDLogAdapter logging = Logs.limitLength(Logs.toConsole(), 200, 2000);
+   * </code></pre>
+   * <p>
+   * Stacktraces that are passed separately from the message, as with
+   * {@link LDLogger#error(Throwable, String, Object...)}, are not limited.
+   *
+   * @param adapter a log adapter
+   * @param maxParameterLength the maximum number of characters for each parameter
+   * @param maxMessageLength the maximum number of characters for the whole message
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter limitLength(LDLogAdapter adapter, int maxParameterLength, int maxMessageLength) {
+    return new LengthLimiter(adapter, maxParameterLength, maxMessageLength);
+  }
+
+  /**
+   * Limits how often messages can be logged for each logger name and level.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}, to keep a burst of
+   * repeated messages, such as a warning logged on every attempt of a retry loop, from
+   * flooding the output. Each combination of logger name and level has its own token bucket:
+   * up to {@code burst} messages can be logged at once, and after that, messages are allowed
+   * at an average rate of {@code messagesPerSecond}. Messages beyond that are dropped.
+   * <p>
+   * When messages have been dropped, a line saying how many is written at the same level and
+   * with the same logger name, either before the next message that is allowed or, if messages
+   * are still being dropped, at most once every 10 seconds. {@link #flush(LDLogAdapter, long)}
+   * also writes any such lines that are pending.
+   * <pre><code>
+   *     // Allow bursts of up to 20 messages per logger and level, and 5 per second after that
+   *     LDLogAdapter logging = Logs.rateLimited(Logs.toConsole(), 5, 20);
+   * </code></pre>
+   * <p>
+   * Checking the limit does not take a lock; it costs one read of the system clock and one
+   * atomic update per message. Messages at a level that the underlying adapter has disabled
+   * do not count toward the limit.
+   *
+   * @param adapter a log adapter
+   * @param messagesPerSecond the average number of messages allowed per second, for each
+   *   logger name and level; the lowest possible rate is one message per hour
+   * @param burst the number of messages that can be logged at once before the rate applies,
+   *   from 1 to 1000000
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter rateLimited(LDLogAdapter adapter, double messagesPerSecond, int burst) {
+    return new RateLimiter(adapter, messagesPerSecond, burst);
+  }
+
+  /**
+   * Drops repeats of the same log message within a time window, and reports how many there
+   * were.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}. A message is
+   * identified by its logger name, its level, and its format string; the parameters are not
+   * considered, so messages such as "Connection failed, will retry in {} ms" are treated as
+   * repeats even if the parameter is different each time. The first occurrence of a message
+   * is logged, and later occurrences within {@code windowMillis} are only counted. When the
+   * message occurs again after the window has ended, or when {@link #flush(LDLogAdapter, long)}
+   * is called, a line such as "[Message repeated 4312 times in the last 10000 ms: Connection
+   * failed, will retry in {} ms]" is written at the same level, and a new window starts.
+   * <pre><code>
+   *     // Log each distinct message at most once every 10 seconds
+   *     LDLogAdapter logging = Logs.suppressDuplicates(Logs.toConsole(), 10000);
+   * </code></pre>
+   * <p>
+   * Format strings are compared by identity, not by their contents, which is cheap and is
+   * correct for the usual case of a string literal at each call site. A repeat is never
+   * formatted, so it costs no more than a hash table lookup. A message logged with a computed
+   * format string, or as an object other than a string, is never treated as a repeat. The table
+   * of recent messages has a fixed size, so if many different messages are being logged, a
+   * message may occasionally be logged again within its window.
+   *
+   * @param adapter a log adapter
+   * @param windowMillis how long to suppress repeats of a message after it is logged, in
+   *   milliseconds
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter suppressDuplicates(LDLogAdapter adapter, long windowMillis) {
+    return new DuplicateFilter(adapter, windowMillis);
+  }
+
+  /**
+   * Writes low-level log output for only a fixed fraction of keys, such as user or context
+   * keys.
+   * <p>
+   * This makes it practical to enable debug logging in a busy service: instead of writing
+   * debug output for every request, or for a random fraction of messages, it writes all of the
+   * debug output for a consistent fraction of contexts, so that everything logged about a
+   * given context can be seen together. Code that logs about a context gets a logger for it
+   * with {@link LDLogger#withSamplingKey(String)}. Each key is hashed, and if the hash falls
+   * within {@code rate}, that logger writes everything as usual; otherwise, it does not write
+   * messages at {@code sampledLevel} or below, and reports those levels as disabled. Loggers
+   * that have no sampling key are not affected.
+   * <pre><code>
+   *     // Write DEBUG output for 1% of contexts, and INFO and above for all of them
+   *     LDLogAdapter logging = Logs.sampledByKey(Logs.toConsole(), 0.01, LDLogLevel.DEBUG);
+   *
+   *     LDLogger contextLogger = baseLogger.withSamplingKey(context.getKey());
+   * </code></pre>
+   * <p>
+   * The hash is computed once, when the logger is created, and the same key is always sampled
+   * or not sampled regardless of which process or JVM logs it. The adapter returned by this
+   * method can be wrapped in other adapters, such as {@link #level(LDLogAdapter, LDLogLevel)};
+   * the key reaches it as long as each of those creates its channels by calling the adapter
+   * it wraps, as all of the adapters in this package do.
+   *
+   * @param adapter a log adapter
+   * @param rate the fraction of keys to write output for, from 0 to 1
+   * @param sampledLevel the highest level that is sampled; null defaults to
+   *   {@link LDLogLevel#DEBUG}
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter sampledByKey(LDLogAdapter adapter, double rate, LDLogLevel sampledLevel) {
+    return new KeySampler(adapter, rate, sampledLevel);
+  }
+
+  /**
+   * Raises the log level automatically when there is more log output than can be handled, and
+   * restores it when the load decreases.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}. Normally it works like
+   * {@link #level(LDLogAdapter, LDLogLevel)}, writing messages at {@code minimumLevel} and
+   * above. It also measures, over intervals of one second, how many messages are being logged
+   * at each level and how long the underlying adapter takes to write them. If more than
+   * {@code maxMessagesPerSecond} messages are being logged at the current level, or writing
+   * them takes more than {@code maxWriteMicros} on average, it raises the level by one step,
+   * from {@link LDLogLevel#DEBUG} to {@link LDLogLevel#INFO} and then to
+   * {@link LDLogLevel#WARN}; it never raises the level past {@link LDLogLevel#WARN}, so
+   * warnings and errors are always written. Once the messages at the next lower level would be
+   * less than half of both limits, for three intervals in a row, it lowers the level again by
+   * one step, until it is back at {@code minimumLevel}.
+   * <pre><code>
+   *     // Write DEBUG output normally, but cut back to INFO or WARN if there are more than
+   *     // 10000 messages per second or each one takes more than 200 microseconds
+   *     LDLogAdapter logging = Logs.governed(Logs.toConsole(), LDLogLevel.DEBUG, 10000, 200);
+   * </code></pre>
+   * <p>
+   * Each change of level is reported with a log message from the logger
+   * {@code "com.launchdarkly.logging.LevelGovernor"}: a {@link LDLogLevel#WARN} message when
+   * it is raised, and an {@link LDLogLevel#INFO} message when it is lowered. While the level is
+   * raised, {@link LDLogger#isEnabled(LDLogLevel)} returns false for the levels below it.
+   * <p>
+   * Messages below the current level are still counted, so that the governor can tell when
+   * the load has decreased; this includes calls to {@link LDLogger#isEnabled(LDLogLevel)} for
+   * those levels, since code that checks the level first would otherwise not log anything
+   * that could be counted. There is no background thread: an interval ends when the first
+   * message after it is logged, so if the application stops logging altogether, the level
+   * stays where it is until logging resumes.
+   *
+   * @param adapter a log adapter
+   * @param minimumLevel the lowest log level that should be enabled when the load is normal;
+   *   null defaults to {@link LDLogLevel#DEBUG}
+   * @param maxMessagesPerSecond the number of messages per second, at the current level, above
+   *   which the level is raised
+   * @param maxWriteMicros the average time to write a message, in microseconds, above which
+   *   the level is raised
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter governed(LDLogAdapter adapter, LDLogLevel minimumLevel,
+      double maxMessagesPerSecond, long maxWriteMicros) {
+    return new LevelGovernor(adapter, minimumLevel, maxMessagesPerSecond, maxWriteMicros,
+        LevelGovernor.WINDOW_NANOS);
+  }
+
+  /**
+   * Temporarily enables all log output for a logger and its sub-loggers after it logs an error.
+   * <p>
+   * This is a decorator that can be applied to any {@link LDLogAdapter}. Normally it works like
+   * {@link #level(LDLogAdapter, LDLogLevel)}, writing messages at {@code minimumLevel} and
+   * above. When a logger logs an {@link LDLogLevel#ERROR} message, that logger and every
+   * logger whose name starts with its name followed by a period, as created by
+   * {@link LDLogger#subLogger(String)}, write messages at all levels, including
+   * {@link LDLogLevel#DEBUG}, for the next {@code durationMillis} milliseconds; each further
+   * error starts the period over. This provides detailed output around the time of a problem
+   * without writing debug output all the time. Other loggers, including the parent of the one
+   * that logged the error, are not affected.
+   * <pre><code>
+   *     // Write INFO and above normally, but DEBUG too for 30 seconds after an error
+   *     LDLogAdapter logging = Logs.escalateOnError(Logs.toConsole(), LDLogLevel.INFO, 30000);
+   *     LDLogger logger = LDLogger.withAdapter(logging, "MyApp");
+   *     LDLogger dbLogger = logger.subLogger("db");
+   *     dbLogger.error("query failed"); // enables DEBUG for "MyApp.db" and "MyApp.db.pool"
+   * </code></pre>
+   * <p>
+   * {@link LDLogger#isEnabled(LDLogLevel)} returns true for the lower levels while they are
+   * enabled; when no logger has logged an error recently, checking this only costs a read of
+   * the clock and one comparison. Debug messages that were logged before the error are not
+   * written; to get those as well, see {@link #debugRecorder(LDLogAdapter, LDLogLevel, int)}.
+   * <p>
+   * If applied to an adapter that does have an external configuration mechanism, such as
+   * {@link LDSLF4J}, the lower levels are only written if that configuration allows them.
+   *
+   * @param adapter a log adapter
+   * @param minimumLevel the lowest log level that should be enabled when there has not been
+   *   an error; null defaults to {@link LDLogLevel#DEBUG}
+   * @param durationMillis how long to write messages at all levels after an error, in
+   *   milliseconds
+   * @return a new log adapter based on the previous one
+   * @since 1.2.0
+   */
+  public static LDLogAdapter escalateOnError(LDLogAdapter adapter, LDLogLevel minimumLevel, long durationMillis) {
+    return new ErrorEscalation(adapter, minimumLevel, TimeUnit.MILLISECONDS.toNanos(durationMillis));
+  }
+
+  /**
+   * Measures the log output that passes through an adapter.
+   * <p>
+   * The returned {@link LogMetrics} forwards everything to the specified adapter, while
+   * counting messages per logger name and level, their total length, and the time taken by
+   * each call. See {@link LogMetrics} for details.
+   *
+   * @param adapter a log adapter
+   * @return a new log adapter based on the previous one, that also provides metrics
+   * @since 1.2.0
+   */
+  public static LogMetrics withMetrics(LDLogAdapter adapter) {
+    return new LogMetrics(adapter);
+  }
+
+  /**
+   * Finds the log statements that produce the most output.
+   * <p>
+   * The returned {@link LogHotspots} forwards everything to the specified adapter, while
+   * estimating how many messages, and how much text, each format string has produced, and
+   * remembering the format strings with the highest estimates. See {@link LogHotspots} for
+   * details.
+   *
+   * @param adapter a log adapter
+   * @param maxStatements how many of the top format strings to remember for each measurement
+   * @return a new log adapter based on the previous one, that also reports hotspots
+   * @since 1.2.0
+   */
+  public static LogHotspots withHotspots(LDLogAdapter adapter, int maxStatements) {
+    return new LogHotspots(adapter, maxStatements);
+  }
+
+  /**
+   * Emits a JDK Flight Recorder event for each message that is logged.
+   * <p>
+   * This lets log activity appear in a flight recording on the same timeline as garbage
+   * collection, lock contention, and other JVM events. All output is forwarded to the specified
+   * adapter unchanged. While a recording that enables the {@code com.launchdarkly.logging.LogCall}
+   * event is active, each message logged at a level that the adapter has enabled produces an
+   * event with the logger name, the level, the format string, and the length of the message
+   * after parameter substitution; the duration of the event is the time the adapter took to
+   * write the message.
+   * <pre><code>
+   *     LDLogAdapter logging = Logs.withFlightRecorderEvents(Logs.toConsole());
+   * </code></pre>
+   * <p>
+   * When no recording is active, the only added cost is one check per call. Flight Recorder
+   * requires Java 11 or later; in Java 8 and Android, this method returns the same adapter
+   * that was passed in.
+   *
+   * @param adapter a log adapter
+   * @return a new log adapter based on the previous one, or the same adapter if Flight
+   *   Recorder is not available
+   * @since 1.2.0
+   */
+  public static LDLogAdapter withFlightRecorderEvents(LDLogAdapter adapter) {
+    return JfrLogging.wrap(adapter);
+  }
+
+  /**
+   * Writes any output that an adapter is holding.
+   * <p>
+   * If the adapter implements {@link LDLogAdapter.Lifecycle}, this calls its
+   * {@link LDLogAdapter.Lifecycle#flush(long)} method. Otherwise it does nothing and returns
+   * true, since there is nothing to wait for.
+   *
+   * @param adapter a log adapter
+   * @param timeoutMillis the maximum time to wait, in milliseconds
+   * @return true if all output was written, or false if the timeout elapsed first
+   * @since 1.2.0
+   */
+  public static boolean flush(LDLogAdapter adapter, long timeoutMillis) {
+    return !(adapter instanceof LDLogAdapter.Lifecycle) ||
+        ((LDLogAdapter.Lifecycle)adapter).flush(timeoutMillis);
+  }
+
+  /**
+   * Writes any output that an adapter is holding, and releases its resources.
+   * <p>
+   * If the adapter implements {@link LDLogAdapter.Lifecycle}, this calls its
+   * {@link LDLogAdapter.Lifecycle#close()} method. Otherwise it does nothing.
+   *
+   * @param adapter a log adapter
+   * @since 1.2.0
+   */
+  public static void close(LDLogAdapter adapter) {
+    if (adapter instanceof LDLogAdapter.Lifecycle) {
+      ((LDLogAdapter.Lifecycle)adapter).close();
+    }
+  }
+
+  /**
+   * Arranges for an adapter to be flushed and closed when the JVM shuts down.
+   * <p>
+   * This adds a shutdown hook that calls {@link #flush(LDLogAdapter, long)} and then, if all
+   * output was written within the timeout, {@link #close(LDLogAdapter)}. The timeout keeps an
+   * output destination that has stopped responding from preventing the JVM from exiting.
+   * <pre><code>
+   *     LDLogAdapter logging = Logs.closeOnShutdown(Logs.toConsole().async(10000), 5000);
+   * </code></pre>
+   * <p>
+   * Shutdown hooks do not run if the JVM is terminated abruptly, or in Android.
+   *
+   * @param <T> the adapter type
+   * @param adapter a log adapter
+   * @param timeoutMillis the maximum time to wait for output to be written, in milliseconds
+   * @return the same adapter
+   * @since 1.2.0
+   */
+  public static <T extends LDLogAdapter> T closeOnShutdown(T adapter, long timeoutMillis) {
+    Runtime.getRuntime().addShutdownHook(new Thread(shutdownAction(adapter, timeoutMillis),
+        "LaunchDarkly-logging-shutdown"));
+    return adapter;
+  }
+
+  static Runnable shutdownAction(final LDLogAdapter adapter, final long timeoutMillis) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        if (flush(adapter, timeoutMillis)) {
+          close(adapter);
+        }
+      }
+    };
+  }
+
+  // Returns the time remaining until a deadline that was computed with System.nanoTime(), in
+  // milliseconds, for adapters that pass a timeout on to several other adapters in turn.
+  static long remainingMillis(long deadlineNanos) {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+  }
+
+  // PrintStream does its own locking, and before Java 24 a virtual thread that blocks on a
+  // synchronized block, or does I/O inside one, cannot be unmounted from its platform thread.
+  // Writers take this lock first so that they wait for each other on a ReentrantLock instead,
+  // and the PrintStream's own lock is not contended by output from this writer. That is
+  // enough for a plain PrintStream, which uses an internal ReentrantLock since Java 21, but a
+  // subclass of PrintStream still does its I/O in a synchronized block. We cannot get around
+  // that, since the underlying stream is not accessible to us, so blocking output to such a
+  // stream still pins the writing thread before Java 24.
+  static final class StreamLineWriter implements SimpleLogging.LineWriter, LDLogAdapter.Lifecycle {
     final PrintStream stream; // exposed for testing
+    private final ReentrantLock lock = new ReentrantLock();
     
     StreamLineWriter(PrintStream stream) {
       this.stream = stream;
@@ -166,7 +636,40 @@ public abstract class Logs {
     
     @Override
     public void writeLine(String line) {
-      stream.println(line);
+      lock.lock();
+      try {
+        stream.println(line);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // A batch is joined into one string and printed with one call, so that it is passed to the
+    // underlying stream in as few writes as its buffering allows.
+    @Override
+    public void writeLines(List<String> lines) {
+      StringBuilder s = new StringBuilder();
+      for (String line: lines) {
+        s.append(line).append(System.lineSeparator());
+      }
+      lock.lock();
+      try {
+        stream.print(s.toString());
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public boolean flush(long timeoutMillis) {
+      stream.flush();
+      return true;
+    }
+
+    // The stream belongs to the application, so it is flushed but not closed.
+    @Override
+    public void close() {
+      stream.flush();
     }
   }
 }
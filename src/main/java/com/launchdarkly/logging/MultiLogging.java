@@ -1,9 +1,11 @@
 package com.launchdarkly.logging;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * See {@link Logs#toMultiple(LDLogAdapter...)}.
  */
-final class MultiLogging implements LDLogAdapter {
+final class MultiLogging implements LDLogAdapter, LDLogAdapter.Lifecycle {
   private final LDLogAdapter[] adapters;
     
   MultiLogging(LDLogAdapter[] adapters) {
@@ -20,6 +22,24 @@ final class MultiLogging implements LDLogAdapter {
     return new ChannelImpl(channels);
   }
 
+  // All of the adapters share one deadline, so the total time is limited by the timeout.
+  @Override
+  public boolean flush(long timeoutMillis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    boolean flushed = true;
+    for (LDLogAdapter a: adapters) {
+      flushed = Logs.flush(a, Logs.remainingMillis(deadline)) && flushed;
+    }
+    return flushed;
+  }
+
+  @Override
+  public void close() {
+    for (LDLogAdapter a: adapters) {
+      Logs.close(a);
+    }
+  }
+
   private static final class ChannelImpl implements Channel {
     private final Channel[] channels;
     
@@ -64,5 +84,12 @@ final class MultiLogging implements LDLogAdapter {
         c.log(level, format, params);
       }
     }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      for (Channel c: channels) {
+        c.log(level, throwable, format, params);
+      }
+    }
   }
 }
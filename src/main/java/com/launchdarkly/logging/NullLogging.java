@@ -32,5 +32,8 @@ final class NullLogging implements LDLogAdapter {
 
     @Override
     public void log(LDLogLevel level, String format, Object... params) {}
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {}
   }
 }
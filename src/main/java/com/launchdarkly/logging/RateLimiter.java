@@ -0,0 +1,166 @@
+package com.launchdarkly.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RateLimiter implements LDLogAdapter, LDLogAdapter.Lifecycle {
+  static final String SUPPRESSED_MESSAGE_FORMAT =
+      "[{} log messages at this level were suppressed because of the rate limit]";
+  static final long SUMMARY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final long MAX_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+  private static final int MAX_BURST = 1000000;
+
+  final LDLogAdapter wrappedAdapter; // exposed for testing
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final ConcurrentHashMap<String, Bucket[]> buckets = new ConcurrentHashMap<>();
+
+  RateLimiter(LDLogAdapter wrappedAdapter, double messagesPerSecond, int burst) {
+    this.wrappedAdapter = wrappedAdapter;
+    // The limits keep burstNanos, and any time computed from it, from overflowing.
+    this.intervalNanos = messagesPerSecond > 0 ?
+        Math.max(1, Math.min(MAX_INTERVAL_NANOS, (long)(TimeUnit.SECONDS.toNanos(1) / messagesPerSecond))) :
+        MAX_INTERVAL_NANOS;
+    this.burstNanos = intervalNanos * Math.max(1, Math.min(MAX_BURST, burst));
+  }
+
+  @Override
+  public Channel newChannel(String name) {
+    Channel wrappedChannel = wrappedAdapter.newChannel(name);
+    Bucket[] channelBuckets = buckets.get(name);
+    if (channelBuckets == null) {
+      Bucket[] newBuckets = new Bucket[LDLogLevel.values().length];
+      for (LDLogLevel level: LDLogLevel.values()) {
+        newBuckets[level.ordinal()] = new Bucket(wrappedChannel, level, System.nanoTime());
+      }
+      channelBuckets = buckets.putIfAbsent(name, newBuckets);
+      if (channelBuckets == null) {
+        channelBuckets = newBuckets;
+      }
+    }
+    return new ChannelImpl(wrappedChannel, channelBuckets);
+  }
+
+  @Override
+  public boolean flush(long timeoutMillis) {
+    for (Bucket[] channelBuckets: buckets.values()) {
+      for (Bucket bucket: channelBuckets) {
+        bucket.writeSummary();
+      }
+    }
+    return Logs.flush(wrappedAdapter, timeoutMillis);
+  }
+
+  @Override
+  public void close() {
+    Logs.close(wrappedAdapter);
+  }
+
+  // A token bucket for one logger name and level, implemented with the generic cell rate
+  // algorithm: instead of a token count that has to be refilled, it keeps the time at which
+  // the bucket would be full again, so that taking a token is one read of the clock and one
+  // compare-and-set, and nothing needs to happen while no messages are logged. Each message
+  // moves that time forward by intervalNanos, and a message is allowed as long as the time is
+  // no more than burstNanos in the future.
+  final class Bucket {
+    private final Channel summaryChannel;
+    private final LDLogLevel level;
+    private final AtomicLong fullTime;
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong lastSummaryTime;
+
+    Bucket(Channel summaryChannel, LDLogLevel level, long now) {
+      this.summaryChannel = summaryChannel;
+      this.level = level;
+      this.fullTime = new AtomicLong(now);
+      this.lastSummaryTime = new AtomicLong(now);
+    }
+
+    // Returns true if a message may be written now. If a message is allowed after some were
+    // suppressed, or if messages have been suppressed for a while, this first writes a line
+    // saying how many were suppressed.
+    boolean tryAcquire(long now) {
+      while (true) {
+        long full = fullTime.get();
+        long newFull = (full - now < 0 ? now : full) + intervalNanos;
+        if (newFull - now > burstNanos) {
+          suppressed.incrementAndGet();
+          long lastSummary = lastSummaryTime.get();
+          if (now - lastSummary >= SUMMARY_INTERVAL_NANOS && lastSummaryTime.compareAndSet(lastSummary, now)) {
+            writeSummary();
+          }
+          return false;
+        }
+        if (fullTime.compareAndSet(full, newFull)) {
+          if (suppressed.get() != 0) {
+            lastSummaryTime.set(now);
+            writeSummary();
+          }
+          return true;
+        }
+      }
+    }
+
+    void writeSummary() {
+      long count = suppressed.getAndSet(0);
+      if (count != 0) {
+        summaryChannel.log(level, SUPPRESSED_MESSAGE_FORMAT, count);
+      }
+    }
+  }
+
+  private static final class ChannelImpl implements Channel {
+    private final Channel wrappedChannel;
+    private final Bucket[] buckets;
+
+    ChannelImpl(Channel wrappedChannel, Bucket[] buckets) {
+      this.wrappedChannel = wrappedChannel;
+      this.buckets = buckets;
+    }
+
+    private boolean allow(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level) && buckets[level.ordinal()].tryAcquire(System.nanoTime());
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      if (allow(level)) {
+        wrappedChannel.log(level, message);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, param);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, param1, param2);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      if (allow(level)) {
+        wrappedChannel.log(level, format, params);
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      if (allow(level)) {
+        wrappedChannel.log(level, throwable, format, params);
+      }
+    }
+  }
+}
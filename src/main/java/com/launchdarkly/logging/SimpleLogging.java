@@ -4,6 +4,7 @@ import java.io.PrintStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 /**
@@ -31,7 +32,7 @@ import java.util.TimeZone;
  *       .build();
  * </code></pre>
  */
-public final class SimpleLogging implements LDLogAdapter {
+public final class SimpleLogging implements LDLogAdapter, LDLogAdapter.Lifecycle {
   /**
    * Functional interface for a method or lambda that writes a line of text.
    * <p>
@@ -46,6 +47,25 @@ public final class SimpleLogging implements LDLogAdapter {
      * @param line a line of text
      */
     void writeLine(String line);
+
+    /**
+     * Writes several lines of text that have already been formatted.
+     * <p>
+     * This is called instead of {@link #writeLine(String)} when output is written in batches,
+     * as it is by {@link SimpleLogging#async(int)}. The default implementation calls
+     * {@link #writeLine(String)} for each line; an implementation can override it to write
+     * all of the lines in one operation.
+     * <p>
+     * This method must be thread-safe.
+     *
+     * @param lines the lines of text
+     * @since 1.2.0
+     */
+    default void writeLines(List<String> lines) {
+      for (String line: lines) {
+        writeLine(line);
+      }
+    }
   }
   
   /**
@@ -98,10 +118,95 @@ public final class SimpleLogging implements LDLogAdapter {
     return new SimpleLogging(this.lineWriter, this.tag, timestampFormat);
   }
   
+  /**
+   * Writes output on a background thread, so that logging does not wait for I/O.
+   * <p>
+   * Each line is formatted, including its timestamp, on the thread that logged it, and then
+   * queued; a daemon thread takes lines from the queue and passes them to the
+   * {@link LineWriter}. So that many threads can log at once without waiting for each other,
+   * the queue is divided into stripes, one per CPU by default, and each thread always uses the
+   * same stripe. Lines from one thread are always written in the order they were logged; lines
+   * from different threads are written in the order of the times they were queued, as nearly
+   * as can be determined.
+   * <p>
+   * If lines are logged faster than they can be written and the queue is full, further lines
+   * are dropped until there is room again, and a line saying how many were dropped is written
+   * after the lines that were already queued.
+   * <p>
+   * This method does not modify the current instance, but returns a new adapter based on this
+   * one. Each call starts a new background thread, which runs until {@link #close()} is called.
+   * Use {@link #flush(long)} or {@link #close()} to make sure that all output has been written,
+   * or {@link Logs#closeOnShutdown(LDLogAdapter, long)} to do so when the JVM exits.
+   *
+   * @param bufferCapacity the maximum number of lines that can be waiting to be written
+   * @return an adapter with the specified configuration
+   * @since 1.2.0
+   */
+  public SimpleLogging async(int bufferCapacity) {
+    return async(bufferCapacity, AsyncLineWriter.defaultStripeCount());
+  }
+
+  /**
+   * Same as {@link #async(int)}, but specifies how many stripes the queue should be divided
+   * into.
+   * <p>
+   * More stripes let more threads log at once without waiting for each other; fewer stripes
+   * mean that each stripe has more of the buffer capacity, so a burst of output from a few
+   * threads is less likely to be dropped. The number is rounded up to a power of two, and
+   * is at most 1024.
+   *
+   * @param bufferCapacity the maximum number of lines that can be waiting to be written
+   * @param stripeCount the number of stripes
+   * @return an adapter with the specified configuration
+   * @since 1.2.0
+   */
+  public SimpleLogging async(int bufferCapacity, int stripeCount) {
+    return new SimpleLogging(new AsyncLineWriter(this.lineWriter, bufferCapacity, stripeCount),
+        this.tag, this.timestampFormat);
+  }
+
   @Override
   public Channel newChannel(String name) {
     return new ChannelImpl(name);
   }
+
+  /**
+   * Writes any output that has not yet been written.
+   * <p>
+   * This only has an effect if the adapter is asynchronous (see {@link #async(int)}), or if
+   * its destination is buffered, such as a {@code PrintStream} that is not set to flush
+   * automatically.
+   *
+   * @param timeoutMillis the maximum time to wait, in milliseconds
+   * @return true if all output was written, or false if the timeout elapsed first
+   * @since 1.2.0
+   */
+  @Override
+  public boolean flush(long timeoutMillis) {
+    return !(lineWriter instanceof Lifecycle) || ((Lifecycle)lineWriter).flush(timeoutMillis);
+  }
+
+  /**
+   * Writes any output that has not yet been written, and releases resources.
+   * <p>
+   * If the adapter is asynchronous, this stops its background thread; output that is logged
+   * afterward is written synchronously. If the adapter writes to a file (see
+   * {@link Logs#toFile(java.io.File)}), the file is closed, and output that is logged afterward
+   * is appended by opening the file again for each write. A {@code PrintStream} destination
+   * is flushed but not closed, since it belongs to the application.
+   * <p>
+   * Adapters that were created from this one with {@link #tag(String)},
+   * {@link #timestampFormat(DateFormat)}, or {@link #async(int)} share the same destination, so
+   * closing any of them affects all of them.
+   *
+   * @since 1.2.0
+   */
+  @Override
+  public void close() {
+    if (lineWriter instanceof Lifecycle) {
+      ((Lifecycle)lineWriter).close();
+    }
+  }
   
   private final class ChannelImpl implements Channel {
     private final String name;
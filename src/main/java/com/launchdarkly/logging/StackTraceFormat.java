@@ -0,0 +1,289 @@
+package com.launchdarkly.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Options for rendering exception stacktraces with {@link LogValues#exceptionTrace(Throwable, StackTraceFormat)}.
+ * <p>
+ * Rendering a stacktrace is expensive, and when something goes wrong repeatedly, such as a
+ * service being unavailable, the same stacktrace may be logged many times per second. A
+ * {@link StackTraceFormat} remembers the most recently rendered stacktraces, identified by the
+ * exception classes and stack frames of the exception and its causes; if an exception with
+ * an identical stacktrace is rendered again, the cached text is reused, so only the
+ * exception's {@code toString()} has to be computed. Optionally, a repeated stacktrace can be
+ * replaced by a reference to the first one; see {@link #backReferences(boolean)}.
+ * <p>
+ * The output resembles that of {@code Throwable.printStackTrace()}, including "Caused by:"
+ * sections for each cause and "... n more" for frames that a cause has in common with the
+ * exception that it caused, but suppressed exceptions are not included.
+ * <p>
+ * Each instance has its own cache, so an application should create an instance once and
+ * reuse it, for instance by keeping it in a static field:
+ * <pre><code>
+ *     static final StackTraceFormat TRACE_FORMAT = StackTraceFormat.defaults()
+ *       .maxDepth(50).collapseFrames("java.", "jdk.internal.", "sun.reflect.");
+ *
+ *     logger.debug("{}", LogValues.exceptionTrace(e, TRACE_FORMAT));
+ * </code></pre>
+ * <p>
+ * The configuration methods do not modify the current instance, but return a new one with
+ * an empty cache.
+ *
+ * @since 1.2.0
+ */
+public final class StackTraceFormat {
+  /**
+   * The default value for {@link #cacheSize(int)}.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 100;
+
+  private static final String NL = System.lineSeparator();
+  private static final int MAX_CAUSES = 100;
+
+  private final int maxDepth;
+  private final String[] collapsedPrefixes;
+  private final boolean backReferences;
+  private final int cacheSize;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<TraceKey, CachedTrace> cache;
+  private int lastTraceNumber; // protected by lock
+
+  private StackTraceFormat(int maxDepth, String[] collapsedPrefixes, boolean backReferences, int cacheSize) {
+    this.maxDepth = maxDepth;
+    this.collapsedPrefixes = collapsedPrefixes;
+    this.backReferences = backReferences;
+    this.cacheSize = cacheSize;
+    // access order, so that the eldest entry is the least recently used one
+    this.cache = new LinkedHashMap<TraceKey, CachedTrace>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<TraceKey, CachedTrace> eldest) {
+        return size() > StackTraceFormat.this.cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns a format with no depth limit, no collapsed frames, no back-references, and a cache
+   * size of {@link #DEFAULT_CACHE_SIZE}.
+   *
+   * @return a new instance
+   */
+  public static StackTraceFormat defaults() {
+    return new StackTraceFormat(Integer.MAX_VALUE, new String[0], false, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Specifies the maximum number of stack frames to show for the exception and for each of its
+   * causes. If there are more, a line saying how many were left out is shown instead.
+   *
+   * @param maxDepth the maximum number of frames; values less than 1 are changed to 1
+   * @return a new instance with the specified configuration
+   */
+  public StackTraceFormat maxDepth(int maxDepth) {
+    return new StackTraceFormat(Math.max(1, maxDepth), collapsedPrefixes, backReferences, cacheSize);
+  }
+
+  /**
+   * Specifies class name prefixes for frames that are not interesting, such as JDK internals
+   * and reflection. Each run of consecutive frames whose class names start with any of these
+   * prefixes is shown as a single line saying how many frames were left out. The first frame
+   * of each trace, where the exception was thrown, is always shown.
+   *
+   * @param classNamePrefixes prefixes such as {@code "java."} or {@code "sun.reflect."}
+   * @return a new instance with the specified configuration
+   */
+  public StackTraceFormat collapseFrames(String... classNamePrefixes) {
+    return new StackTraceFormat(maxDepth, classNamePrefixes.clone(), backReferences, cacheSize);
+  }
+
+  /**
+   * Specifies whether repeated stacktraces should be replaced by a reference to the first one.
+   * <p>
+   * If this is true, each distinct stacktrace is numbered the first time it is rendered, and
+   * the first line of the output ends with "[stack trace #n]". If an exception with the same
+   * stacktrace is rendered again while that stacktrace is still in the cache, the stack frames
+   * are left out, and the first line ends with "[same stack trace as #n]" instead. The first
+   * line of each cause is still shown, since its message may be different.
+   * <p>
+   * Since the numbers are only meaningful if the first occurrence was written to the same
+   * place, this should only be used if all of the output goes to one destination.
+   *
+   * @param backReferences true to replace repeated stacktraces with references
+   * @return a new instance with the specified configuration
+   */
+  public StackTraceFormat backReferences(boolean backReferences) {
+    return new StackTraceFormat(maxDepth, collapsedPrefixes, backReferences, cacheSize);
+  }
+
+  /**
+   * Specifies how many distinct stacktraces to remember. When the cache is full, the least
+   * recently used one is forgotten.
+   *
+   * @param cacheSize the maximum number of cached stacktraces; zero disables caching, and
+   *   negative values are changed to zero
+   * @return a new instance with the specified configuration
+   */
+  public StackTraceFormat cacheSize(int cacheSize) {
+    return new StackTraceFormat(maxDepth, collapsedPrefixes, backReferences, Math.max(0, cacheSize));
+  }
+
+  String render(Throwable e) {
+    List<Throwable> chain = causeChain(e);
+    StackTraceElement[][] traces = new StackTraceElement[chain.size()][];
+    for (int i = 0; i < traces.length; i++) {
+      traces[i] = chain.get(i).getStackTrace();
+    }
+    TraceKey key = new TraceKey(chain, traces);
+
+    CachedTrace cached;
+    lock.lock();
+    try {
+      cached = cache.get(key);
+    } finally {
+      lock.unlock();
+    }
+    boolean repeated = cached != null;
+    if (!repeated) {
+      // Frames are rendered outside of the lock; if two threads render the same new
+      // stacktrace at once, they will both do it, and the second one will be kept.
+      String[] frames = renderFrames(traces);
+      lock.lock();
+      try {
+        cached = new CachedTrace(++lastTraceNumber, frames);
+        cache.put(key, cached);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < chain.size(); i++) {
+      if (i > 0) {
+        sb.append(NL).append("Caused by: ");
+      }
+      sb.append(chain.get(i));
+      if (i == 0 && backReferences) {
+        sb.append(repeated ? " [same stack trace as #" : " [stack trace #").append(cached.number).append(']');
+      }
+      if (!(repeated && backReferences)) {
+        sb.append(cached.frames[i]);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static List<Throwable> causeChain(Throwable e) {
+    List<Throwable> chain = new ArrayList<>();
+    Map<Throwable, Boolean> seen = new IdentityHashMap<>();
+    for (Throwable t = e; t != null && chain.size() < MAX_CAUSES && seen.put(t, true) == null; t = t.getCause()) {
+      chain.add(t);
+    }
+    return chain;
+  }
+
+  // Returns the frame lines for each exception in the chain; each line starts with a line
+  // separator, so that the output does not end with one.
+  private String[] renderFrames(StackTraceElement[][] traces) {
+    String[] ret = new String[traces.length];
+    for (int i = 0; i < traces.length; i++) {
+      StackTraceElement[] trace = traces[i];
+      int unique = trace.length;
+      if (i > 0) {
+        StackTraceElement[] enclosing = traces[i - 1];
+        for (int n = enclosing.length - 1; unique > 0 && n >= 0 && trace[unique - 1].equals(enclosing[n]); n--) {
+          unique--;
+        }
+      }
+      int shown = Math.min(unique, maxDepth);
+      StringBuilder sb = new StringBuilder();
+      int collapsed = 0;
+      for (int f = 0; f < shown; f++) {
+        if (f > 0 && isCollapsed(trace[f])) {
+          collapsed++;
+          continue;
+        }
+        appendCollapsed(sb, collapsed);
+        collapsed = 0;
+        sb.append(NL).append("\tat ").append(trace[f]);
+      }
+      appendCollapsed(sb, collapsed);
+      if (shown < unique) {
+        appendFrameCount(sb, unique - shown, " truncated");
+      }
+      if (unique < trace.length) {
+        sb.append(NL).append("\t... ").append(trace.length - unique).append(" more");
+      }
+      ret[i] = sb.toString();
+    }
+    return ret;
+  }
+
+  private boolean isCollapsed(StackTraceElement frame) {
+    for (String prefix: collapsedPrefixes) {
+      if (frame.getClassName().startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void appendCollapsed(StringBuilder sb, int count) {
+    if (count > 0) {
+      appendFrameCount(sb, count, " omitted");
+    }
+  }
+
+  private static void appendFrameCount(StringBuilder sb, int count, String what) {
+    sb.append(NL).append("\t... ").append(count).append(count == 1 ? " frame" : " frames").append(what);
+  }
+
+  // Identifies a stacktrace by the exception classes and stack frames of an exception and its
+  // causes. The hash code is computed once; the map only calls equals() if the hash codes match.
+  private static final class TraceKey {
+    private final Class<?>[] classes;
+    private final StackTraceElement[][] traces;
+    private final int hashCode;
+
+    TraceKey(List<Throwable> chain, StackTraceElement[][] traces) {
+      this.classes = new Class<?>[chain.size()];
+      int h = 1;
+      for (int i = 0; i < classes.length; i++) {
+        classes[i] = chain.get(i).getClass();
+        h = h * 31 + classes[i].hashCode();
+        h = h * 31 + Arrays.hashCode(traces[i]);
+      }
+      this.traces = traces;
+      this.hashCode = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    // Keys are only ever compared with other keys in our own cache.
+    @Override
+    public boolean equals(Object o) {
+      TraceKey other = (TraceKey)o;
+      return Arrays.equals(classes, other.classes) && Arrays.deepEquals(traces, other.traces);
+    }
+  }
+
+  private static final class CachedTrace {
+    final int number;
+    final String[] frames;
+
+    CachedTrace(int number, String[] frames) {
+      this.number = number;
+      this.frames = frames;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.launchdarkly.logging;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size group of counters that can be incremented from many threads without contending
+ * on a single memory location.
+ * <p>
+ * This works like {@code java.util.concurrent.atomic.LongAdder}, which we can't use because it
+ * is not available in the minimum Android API version we support. Each thread updates one of
+ * several stripes, chosen by its thread ID, and reading a value adds up all the stripes. Each
+ * stripe holds one slot for every counter and is padded out to a multiple of 64 bytes, so
+ * threads using different stripes do not share cache lines.
+ */
+final class StripedCounters {
+  private static final int MAX_STRIPES = 32;
+  private static final int LONGS_PER_CACHE_LINE = 8;
+  private static final int STRIPE_COUNT = stripeCount(MAX_STRIPES);
+
+  private final int counterCount;
+  private final int stride;
+  private final AtomicLongArray values;
+
+  StripedCounters(int counterCount) {
+    this.counterCount = counterCount;
+    this.stride = ((counterCount + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE) * LONGS_PER_CACHE_LINE;
+    this.values = new AtomicLongArray(STRIPE_COUNT * stride);
+  }
+
+  // Returns the smallest power of two that is at least the number of CPUs, up to maxStripes.
+  static int stripeCount(int maxStripes) {
+    return powerOfTwoAtLeast(Math.min(Runtime.getRuntime().availableProcessors(), maxStripes));
+  }
+
+  // Values above 2^30 are treated as 2^30, since the next power of two would overflow.
+  static int powerOfTwoAtLeast(int n) {
+    int limit = Math.min(n, 1 << 30);
+    int ret = 1;
+    while (ret < limit) {
+      ret <<= 1;
+    }
+    return ret;
+  }
+
+  // Returns a well-mixed hash of the current thread's ID, for choosing a stripe.
+  static int threadHash() {
+    long id = Thread.currentThread().getId();
+    int h = (int)(id ^ (id >>> 32));
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    return h;
+  }
+
+  private static int stripeIndex() {
+    return threadHash() & (STRIPE_COUNT - 1);
+  }
+
+  int size() {
+    return counterCount;
+  }
+
+  void add(int counter, long delta) {
+    values.getAndAdd(stripeIndex() * stride + counter, delta);
+  }
+
+  void increment(int counter) {
+    add(counter, 1);
+  }
+
+  long get(int counter) {
+    long total = 0;
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      total += values.get(i * stride + counter);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,148 @@
+package com.launchdarkly.logging;
+
+import com.launchdarkly.logging.LDLogAdapter.Channel;
+
+/**
+ * See {@link Logs#withFlightRecorderEvents(LDLogAdapter)}.
+ * <p>
+ * This version of the class is used in Java 11 and later, and replaces the one in
+ * {@code src/main/java}; it must keep the same non-private members as that one.
+ * <p>
+ * Each call creates a {@link LogCallEvent}, but if no recording is active the event is
+ * discarded right away after one check of {@code isEnabled()}, and the JIT compiler can then
+ * avoid allocating it at all. The message is only formatted a second
+ * time, to measure its length, if the event is actually going to be recorded.
+ */
+final class JfrLogging {
+  private JfrLogging() {}
+
+  static LDLogAdapter wrap(LDLogAdapter adapter) {
+    // A custom runtime image might have been built without the jdk.jfr module.
+    if (ModuleLayer.boot().findModule("jdk.jfr").isEmpty()) {
+      return adapter;
+    }
+    return new AdapterImpl(adapter);
+  }
+
+  static final class AdapterImpl implements LDLogAdapter, LDLogAdapter.Lifecycle {
+    final LDLogAdapter wrappedAdapter; // exposed for testing
+
+    AdapterImpl(LDLogAdapter wrappedAdapter) {
+      this.wrappedAdapter = wrappedAdapter;
+    }
+
+    @Override
+    public Channel newChannel(String name) {
+      return new ChannelImpl(name, wrappedAdapter.newChannel(name));
+    }
+
+    @Override
+    public boolean flush(long timeoutMillis) {
+      return Logs.flush(wrappedAdapter, timeoutMillis);
+    }
+
+    @Override
+    public void close() {
+      Logs.close(wrappedAdapter);
+    }
+  }
+
+  private static final class ChannelImpl implements Channel {
+    private final String name;
+    private final Channel wrappedChannel;
+
+    ChannelImpl(String name, Channel wrappedChannel) {
+      this.name = name;
+      this.wrappedChannel = wrappedChannel;
+    }
+
+    @Override
+    public boolean isEnabled(LDLogLevel level) {
+      return wrappedChannel.isEnabled(level);
+    }
+
+    @Override
+    public void log(LDLogLevel level, Object message) {
+      LogCallEvent event = new LogCallEvent();
+      if (!event.isEnabled() || !wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, message);
+        return;
+      }
+      event.begin();
+      wrappedChannel.log(level, message);
+      event.end();
+      if (event.shouldCommit()) {
+        commit(event, level, message instanceof String ? (String)message : null,
+            message == null ? "" : message.toString());
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param) {
+      LogCallEvent event = new LogCallEvent();
+      if (!event.isEnabled() || !wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format, param);
+        return;
+      }
+      event.begin();
+      wrappedChannel.log(level, format, param);
+      event.end();
+      if (event.shouldCommit()) {
+        commit(event, level, format, SimpleFormat.format(format, param));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object param1, Object param2) {
+      LogCallEvent event = new LogCallEvent();
+      if (!event.isEnabled() || !wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format, param1, param2);
+        return;
+      }
+      event.begin();
+      wrappedChannel.log(level, format, param1, param2);
+      event.end();
+      if (event.shouldCommit()) {
+        commit(event, level, format, SimpleFormat.format(format, param1, param2));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, String format, Object... params) {
+      LogCallEvent event = new LogCallEvent();
+      if (!event.isEnabled() || !wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, format, params);
+        return;
+      }
+      event.begin();
+      wrappedChannel.log(level, format, params);
+      event.end();
+      if (event.shouldCommit()) {
+        commit(event, level, format, SimpleFormat.format(format, params));
+      }
+    }
+
+    @Override
+    public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+      LogCallEvent event = new LogCallEvent();
+      if (!event.isEnabled() || !wrappedChannel.isEnabled(level)) {
+        wrappedChannel.log(level, throwable, format, params);
+        return;
+      }
+      event.begin();
+      wrappedChannel.log(level, throwable, format, params);
+      event.end();
+      if (event.shouldCommit()) {
+        commit(event, level, format, SimpleFormat.format(format, params));
+      }
+    }
+
+    private void commit(LogCallEvent event, LDLogLevel level, String format, String rendered) {
+      event.loggerName = name;
+      event.level = level.name();
+      event.format = format;
+      event.renderedLength = rendered.length();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.launchdarkly.logging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder event emitted by {@link JfrLogging} for each message that is logged.
+ * <p>
+ * The duration of the event is the time taken by the underlying adapter to write the message.
+ */
+@Name(LogCallEvent.NAME)
+@Label("Log Call")
+@Category({ "LaunchDarkly", "Logging" })
+@Description("A message written through an LDLogger")
+final class LogCallEvent extends Event {
+  static final String NAME = "com.launchdarkly.logging.LogCall";
+
+  @Label("Logger Name")
+  String loggerName;
+
+  @Label("Level")
+  String level;
+
+  @Label("Format")
+  @Description("The message format string, or the message itself if it had no parameters")
+  String format;
+
+  @Label("Rendered Length")
+  @Description("The length of the message in characters after parameter substitution")
+  int renderedLength;
+}
@@ -0,0 +1,131 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SuppressWarnings("javadoc")
+public class AdapterLifecycleTest extends BaseTest {
+  private final List<String> calls = new ArrayList<>();
+
+  @Test
+  public void flushAndCloseDoNothingForAdapterWithoutLifecycle() {
+    LDLogAdapter adapter = Logs.capture();
+    assertThat(Logs.flush(adapter, 0), is(true));
+    Logs.close(adapter);
+  }
+
+  @Test
+  public void flushAndCloseAreCalledForAdapterWithLifecycle() {
+    LifecycleAdapter adapter = new LifecycleAdapter("a", true);
+    assertThat(Logs.flush(adapter, 100), is(true));
+    Logs.close(adapter);
+    assertThat(calls, contains("flush a 100", "close a"));
+  }
+
+  @Test
+  public void decoratorsPassLifecycleCallsToWrappedAdapter() {
+    LDLogAdapter[] decorated = new LDLogAdapter[] {
+        Logs.level(new LifecycleAdapter("a", false), LDLogLevel.INFO),
+        Logs.withMetrics(new LifecycleAdapter("a", false)),
+        Logs.debugRecorder(new LifecycleAdapter("a", false), LDLogLevel.WARN, 10),
+        Logs.limitLength(new LifecycleAdapter("a", false), 10, 100),
+        Logs.rateLimited(new LifecycleAdapter("a", false), 10, 10),
+        Logs.suppressDuplicates(new LifecycleAdapter("a", false), 1000),
+        Logs.sampledByKey(new LifecycleAdapter("a", false), 0.5, LDLogLevel.DEBUG),
+        Logs.withHotspots(new LifecycleAdapter("a", false), 10),
+        Logs.governed(new LifecycleAdapter("a", false), LDLogLevel.DEBUG, 1000, 1000),
+        Logs.escalateOnError(new LifecycleAdapter("a", false), LDLogLevel.INFO, 1000)
+    };
+    for (LDLogAdapter adapter: decorated) {
+      calls.clear();
+      assertThat(Logs.flush(adapter, 100), is(false));
+      Logs.close(adapter);
+      assertThat(calls, contains("flush a 100", "close a"));
+    }
+  }
+
+  @Test
+  public void flightRecorderAdapterPassesLifecycleCallsToWrappedAdapter() {
+    LDLogAdapter adapter = Logs.withFlightRecorderEvents(new LifecycleAdapter("a", true));
+    assertThat(Logs.flush(adapter, 100), is(true));
+    Logs.close(adapter);
+    assertThat(calls, contains("flush a 100", "close a"));
+  }
+
+  @Test
+  public void multiAdapterFlushesAndClosesAllAdapters() {
+    LDLogAdapter adapter = Logs.toMultiple(new LifecycleAdapter("a", false), Logs.capture(),
+        new LifecycleAdapter("b", true));
+    assertThat(Logs.flush(adapter, 100), is(false));
+    Logs.close(adapter);
+    assertThat(calls.get(0).startsWith("flush a "), is(true));
+    assertThat(calls.get(1).startsWith("flush b "), is(true));
+    assertThat(Long.parseLong(calls.get(1).substring("flush b ".length())), lessThanOrEqualTo(100L));
+    assertThat(calls.subList(2, calls.size()), contains("close a", "close b"));
+  }
+
+  @Test
+  public void multiAdapterFlushSucceedsIfAllAdaptersSucceed() {
+    LDLogAdapter adapter = Logs.toMultiple(new LifecycleAdapter("a", true), new LifecycleAdapter("b", true));
+    assertThat(Logs.flush(adapter, 100), is(true));
+  }
+
+  @Test
+  public void shutdownActionClosesAdapterAfterSuccessfulFlush() {
+    Logs.shutdownAction(new LifecycleAdapter("a", true), 100).run();
+    assertThat(calls, contains("flush a 100", "close a"));
+  }
+
+  @Test
+  public void shutdownActionDoesNotCloseAdapterIfFlushTimesOut() {
+    Logs.shutdownAction(new LifecycleAdapter("a", false), 100).run();
+    assertThat(calls, contains("flush a 100"));
+  }
+
+  @Test
+  public void closeOnShutdownReturnsSameAdapter() {
+    LifecycleAdapter adapter = new LifecycleAdapter("a", true);
+    assertThat(Logs.closeOnShutdown(adapter, 100), sameInstance(adapter));
+    assertThat(calls, empty());
+  }
+
+  @Test
+  public void remainingMillisIsNeverNegative() {
+    assertThat(Logs.remainingMillis(System.nanoTime() - 1000000000L), is(0L));
+  }
+
+  private final class LifecycleAdapter implements LDLogAdapter, LDLogAdapter.Lifecycle {
+    private final String name;
+    private final boolean flushResult;
+
+    LifecycleAdapter(String name, boolean flushResult) {
+      this.name = name;
+      this.flushResult = flushResult;
+    }
+
+    @Override
+    public Channel newChannel(String channelName) {
+      return Logs.none().newChannel(channelName);
+    }
+
+    @Override
+    public boolean flush(long timeoutMillis) {
+      calls.add("flush " + name + " " + timeoutMillis);
+      return flushResult;
+    }
+
+    @Override
+    public void close() {
+      calls.add("close " + name);
+    }
+  }
+}
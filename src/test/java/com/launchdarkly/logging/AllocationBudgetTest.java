@@ -0,0 +1,147 @@
+package com.launchdarkly.logging;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Verifies that logging code paths which should not allocate memory do not allocate memory.
+ * <p>
+ * Each test states a budget in bytes per call. Most are zero: a call that is discarded
+ * because its level is disabled should not create any garbage. Paths that use the varargs
+ * overloads are allowed the size of the parameter array that the caller's code creates,
+ * since that happens before our code is called.
+ * <p>
+ * These tests are skipped on platforms that can't measure per-thread allocation.
+ */
+@SuppressWarnings("javadoc")
+public class AllocationBudgetTest extends BaseTest implements TestValues {
+  private static final int ITERATIONS = 100000;
+
+  // An Object[] with three elements; 16-byte header plus three 8-byte references at most.
+  private static final long PARAMS_ARRAY_BUDGET = 40;
+
+  // The object returned by LogValues.deferOnce; 16-byte header plus two 8-byte references and
+  // a boolean at most, rounded up to a multiple of 8. It has no lock object of its own.
+  private static final long DEFER_ONCE_BUDGET = 40;
+
+  private static final LogValues.StringProvider PROVIDER = new LogValues.StringProvider() {
+    @Override
+    public String get() {
+      return "value";
+    }
+  };
+
+  @BeforeClass
+  public static void checkPlatform() {
+    Assume.assumeTrue(AllocationMeter.isAvailable());
+  }
+
+  @Test
+  public void disabledLevelThroughLevelFilter() {
+    LDLogger logger = LDLogger.withAdapter(Logs.level(Logs.capture(), LDLogLevel.INFO), "logname");
+    assertBudget("isEnabled", 0, isEnabled(logger));
+    assertBudget("no parameters", 0, debugNoParams(logger));
+    assertBudget("one parameter", 0, debugOneParam(logger));
+    assertBudget("two parameters", 0, debugTwoParams(logger));
+    assertBudget("three parameters", PARAMS_ARRAY_BUDGET, debugThreeParams(logger));
+  }
+
+  @Test
+  public void nullLogging() {
+    LDLogger logger = LDLogger.withAdapter(Logs.none(), "logname");
+    assertBudget("isEnabled", 0, isEnabled(logger));
+    assertBudget("no parameters", 0, debugNoParams(logger));
+    assertBudget("one parameter", 0, debugOneParam(logger));
+    assertBudget("two parameters", 0, debugTwoParams(logger));
+    assertBudget("three parameters", PARAMS_ARRAY_BUDGET, debugThreeParams(logger));
+  }
+
+  @Test
+  public void multiLoggingWithAllDestinationsDisabled() {
+    LDLogger logger = LDLogger.withAdapter(
+        Logs.toMultiple(Logs.level(Logs.capture(), LDLogLevel.INFO), Logs.none()), "logname");
+    assertBudget("isEnabled", 0, isEnabled(logger));
+    assertBudget("no parameters", 0, debugNoParams(logger));
+    assertBudget("one parameter", 0, debugOneParam(logger));
+    assertBudget("two parameters", 0, debugTwoParams(logger));
+    assertBudget("three parameters", PARAMS_ARRAY_BUDGET, debugThreeParams(logger));
+  }
+
+  @Test
+  public void debugRecorderWithStringParameters() {
+    // The underlying adapter must have DEBUG enabled, or nothing would be recorded
+    final LDLogger logger = LDLogger.withAdapter(
+        Logs.debugRecorder(Logs.capture(), LDLogLevel.WARN, 100), "logname");
+    assertBudget("record with string parameters", 0, new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(MESSAGE_FORMAT_2, MESSAGE_PARAM_1, "yyy");
+      }
+    });
+  }
+
+  @Test
+  public void deferOnceValueForDisabledLevel() {
+    final LDLogger logger = LDLogger.withAdapter(Logs.level(Logs.capture(), LDLogLevel.INFO), "logname");
+    assertBudget("deferOnce", DEFER_ONCE_BUDGET, new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(MESSAGE_FORMAT_1, LogValues.deferOnce(PROVIDER));
+      }
+    });
+  }
+
+  private static void assertBudget(String description, long budget, Runnable action) {
+    long bytes = AllocationMeter.bytesPerCall(action, ITERATIONS);
+    assertThat(description + ": bytes allocated per call", bytes, lessThanOrEqualTo(budget));
+  }
+
+  private static Runnable isEnabled(final LDLogger logger) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        logger.isEnabled(LDLogLevel.DEBUG);
+      }
+    };
+  }
+
+  private static Runnable debugNoParams(final LDLogger logger) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(SIMPLE_MESSAGE);
+      }
+    };
+  }
+
+  private static Runnable debugOneParam(final LDLogger logger) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+      }
+    };
+  }
+
+  private static Runnable debugTwoParams(final LDLogger logger) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(MESSAGE_FORMAT_2, MESSAGE_PARAM_1, MESSAGE_PARAM_2);
+      }
+    };
+  }
+
+  private static Runnable debugThreeParams(final LDLogger logger) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        logger.debug(MESSAGE_FORMAT_3, MESSAGE_PARAM_1, MESSAGE_PARAM_2, MESSAGE_PARAM_3);
+      }
+    };
+  }
+}
@@ -0,0 +1,93 @@
+package com.launchdarkly.logging;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures how many bytes the current thread allocates while running some code.
+ * <p>
+ * This uses the HotSpot-specific {@code com.sun.management.ThreadMXBean}, which is not
+ * available on all JVMs and not at all in Android. It is accessed by reflection, since test
+ * code must also compile in Android; tests should check {@link #isAvailable()} first.
+ */
+@SuppressWarnings("javadoc")
+public final class AllocationMeter {
+  private static final int WARMUP_ITERATIONS = 20000;
+  private static final int MEASUREMENTS = 3;
+
+  private final Object bean;
+  private final Method getThreadAllocatedBytes;
+
+  private AllocationMeter() throws Exception {
+    Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+    bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+    if (!beanClass.isInstance(bean) ||
+        !(Boolean)beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) {
+      throw new UnsupportedOperationException();
+    }
+    beanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+    getThreadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+  }
+
+  private static AllocationMeter create() {
+    try {
+      return new AllocationMeter();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  public static boolean isAvailable() {
+    return create() != null;
+  }
+
+  /**
+   * Returns the average number of bytes allocated by one call to {@code action}, rounded up,
+   * so that even one byte allocated in all of the calls counts against a budget of zero.
+   * <p>
+   * The action is run many times first so that it has been compiled and any lazy
+   * initialization is done. The fixed overhead of taking the measurement, which includes a
+   * reflective call, is subtracted by also measuring a loop that does nothing. Each loop is
+   * measured several times and the smallest result is used, since the JVM itself sometimes
+   * allocates a little memory on the current thread, for instance while a method is being
+   * recompiled; an allocation made by the action happens in every measurement.
+   */
+  public static long bytesPerCall(Runnable action, int iterations) {
+    AllocationMeter meter = create();
+    Runnable nothing = new Runnable() {
+      @Override
+      public void run() {}
+    };
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      action.run();
+      nothing.run();
+    }
+    long overhead = meter.smallestMeasurement(nothing, iterations);
+    long total = meter.smallestMeasurement(action, iterations);
+    return (Math.max(0, total - overhead) + iterations - 1) / iterations;
+  }
+
+  private long smallestMeasurement(Runnable action, int iterations) {
+    long smallest = Long.MAX_VALUE;
+    for (int i = 0; i < MEASUREMENTS; i++) {
+      smallest = Math.min(smallest, measure(action, iterations));
+    }
+    return smallest;
+  }
+
+  private long measure(Runnable action, int iterations) {
+    long threadId = Thread.currentThread().getId();
+    long before = allocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      action.run();
+    }
+    return allocatedBytes(threadId) - before;
+  }
+
+  private long allocatedBytes(long threadId) {
+    try {
+      return (Long)getThreadAllocatedBytes.invoke(bean, threadId);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class AsyncLineWriterTest extends BaseTest {
+  private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+  private final SimpleLogging.LineWriter sink = new SimpleLogging.LineWriter() {
+    @Override
+    public void writeLine(String line) {
+      lines.add(line);
+    }
+  };
+
+  @Test
+  public void linesAreWrittenInOrderFromOneThread() {
+    AsyncLineWriter w = new AsyncLineWriter(sink, 100, 4);
+    try {
+      w.writeLine("a");
+      w.writeLine("b");
+      w.writeLine("c");
+      assertThat(w.flush(5000), is(true));
+      assertThat(lines, contains("a", "b", "c"));
+    } finally {
+      w.close();
+    }
+  }
+
+  @Test
+  public void linesAreWrittenInBatches() throws Exception {
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    final CountDownLatch unblockWriter = new CountDownLatch(1);
+    final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+    AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        throw new AssertionError("should not be called");
+      }
+
+      @Override
+      public void writeLines(List<String> lines) {
+        batches.add(new ArrayList<>(lines));
+        if (lines.contains("first")) {
+          writerBlocked.countDown();
+          try {
+            unblockWriter.await();
+          } catch (InterruptedException e) {}
+        }
+      }
+    }, 100, 1);
+    try {
+      w.writeLine("first");
+      assertThat(writerBlocked.await(5, TimeUnit.SECONDS), is(true));
+      w.writeLine("a");
+      w.writeLine("b");
+      w.writeLine("c");
+      unblockWriter.countDown();
+      assertThat(w.flush(5000), is(true));
+      assertThat(batches, contains(Arrays.asList("first"), Arrays.asList("a", "b", "c")));
+    } finally {
+      unblockWriter.countDown();
+      w.close();
+    }
+  }
+
+  @Test
+  public void orderIsPreservedWithinEachThread() throws Exception {
+    final int threadCount = 8, perThread = 2000;
+    // make each stripe big enough for all of the lines, since threads may not be spread evenly
+    final AsyncLineWriter w = new AsyncLineWriter(sink, threadCount * perThread * 4, 4);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    for (int t = 0; t < threadCount; t++) {
+      final int threadIndex = t;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            w.writeLine(threadIndex + ":" + i);
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+    done.await();
+    assertThat(w.flush(5000), is(true));
+    w.close();
+
+    assertThat(lines, hasSize(threadCount * perThread));
+    Map<String, Integer> lastSeen = new HashMap<>();
+    for (String line: lines) {
+      String[] parts = line.split(":");
+      int n = Integer.parseInt(parts[1]);
+      Integer previous = lastSeen.get(parts[0]);
+      assertThat(n, equalTo(previous == null ? 0 : previous + 1));
+      lastSeen.put(parts[0], n);
+    }
+  }
+
+  @Test
+  public void linesAreDroppedAndCountedWhenBufferIsFull() throws Exception {
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    final CountDownLatch unblockWriter = new CountDownLatch(1);
+    AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        if (line.equals("first")) {
+          writerBlocked.countDown();
+          try {
+            unblockWriter.await();
+          } catch (InterruptedException e) {}
+        }
+        lines.add(line);
+      }
+    }, 2, 1);
+    try {
+      w.writeLine("first");
+      assertThat(writerBlocked.await(5, TimeUnit.SECONDS), is(true));
+      w.writeLine("a");
+      w.writeLine("b");
+      w.writeLine("c"); // dropped
+      w.writeLine("d"); // dropped
+      unblockWriter.countDown();
+      assertThat(w.flush(5000), is(true));
+      w.writeLine("e");
+      assertThat(w.flush(5000), is(true));
+      assertThat(lines, contains("first", "a", "b",
+          "[2 log messages were dropped because the log buffer was full]", "e"));
+    } finally {
+      unblockWriter.countDown();
+      w.close();
+    }
+  }
+
+  @Test
+  public void droppedCountIsReportedEvenIfNothingElseIsLogged() throws Exception {
+    final CountDownLatch unblockWriter = new CountDownLatch(1);
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        if (line.equals("first")) {
+          writerBlocked.countDown();
+          try {
+            unblockWriter.await();
+          } catch (InterruptedException e) {}
+        }
+        lines.add(line);
+      }
+    }, 1, 1);
+    w.writeLine("first");
+    assertThat(writerBlocked.await(5, TimeUnit.SECONDS), is(true));
+    w.writeLine("a");
+    w.writeLine("b"); // dropped
+    unblockWriter.countDown();
+    w.close();
+    assertThat(lines, contains("first", "a",
+        "[1 log messages were dropped because the log buffer was full]"));
+  }
+
+  @Test
+  public void exceptionFromWriterDoesNotStopBackgroundThread() {
+    AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        if (line.equals("bad")) {
+          throw new RuntimeException("sorry");
+        }
+        lines.add(line);
+      }
+    }, 10, 1);
+    try {
+      w.writeLine("bad");
+      assertThat(w.flush(5000), is(true));
+      w.writeLine("good");
+      assertThat(w.flush(5000), is(true));
+      assertThat(lines, contains("good"));
+    } finally {
+      w.close();
+    }
+  }
+
+  @Test
+  public void closeWritesQueuedLinesAndLaterLinesAreWrittenDirectly() {
+    AsyncLineWriter w = new AsyncLineWriter(sink, 100, 2);
+    w.writeLine("a");
+    w.writeLine("b");
+    w.close();
+    assertThat(lines, contains("a", "b"));
+    w.writeLine("c");
+    assertThat(lines, contains("a", "b", "c"));
+    assertThat(w.flush(0), is(true));
+  }
+
+  @Test
+  public void linesLoggedWhileClosingAreNotLost() throws Exception {
+    final int threadCount = 4, linesPerThread = 200;
+    for (int iteration = 0; iteration < 200; iteration++) {
+      lines.clear();
+      // each stripe has room for every line, so none are dropped even if the threads share a stripe
+      final AsyncLineWriter w = new AsyncLineWriter(sink, threadCount * threadCount * linesPerThread, threadCount);
+      final CountDownLatch started = new CountDownLatch(threadCount);
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < threadCount; t++) {
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            for (int i = 0; i < linesPerThread; i++) {
+              w.writeLine("x");
+            }
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      started.await();
+      w.close();
+      for (Thread thread: threads) {
+        thread.join();
+      }
+      assertThat(lines, hasSize(threadCount * linesPerThread));
+      assertThat(w.flush(0), is(true));
+    }
+  }
+
+  @Test
+  public void closeCanBeInterrupted() {
+    final CountDownLatch unblockWriter = new CountDownLatch(1);
+    final AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        try {
+          unblockWriter.await();
+        } catch (InterruptedException e) {}
+      }
+    }, 10, 1);
+    w.writeLine("a");
+    Thread.currentThread().interrupt();
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {}
+        unblockWriter.countDown();
+      }
+    }).start();
+    w.close();
+    assertThat(Thread.interrupted(), is(true));
+  }
+
+  @Test
+  public void flushTimesOut() {
+    final CountDownLatch unblockWriter = new CountDownLatch(1);
+    AsyncLineWriter w = new AsyncLineWriter(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        try {
+          unblockWriter.await();
+        } catch (InterruptedException e) {}
+      }
+    }, 10, 1);
+    try {
+      w.writeLine("a");
+      assertThat(w.flush(50), is(false));
+    } finally {
+      unblockWriter.countDown();
+      w.close();
+    }
+  }
+
+  @Test
+  public void flushAndCloseArePassedToWrappedWriter() {
+    final List<String> calls = new ArrayList<>();
+    class LifecycleWriter implements SimpleLogging.LineWriter, LDLogAdapter.Lifecycle {
+      @Override
+      public void writeLine(String line) {
+        calls.add(line);
+      }
+
+      @Override
+      public boolean flush(long timeoutMillis) {
+        calls.add("flush");
+        return timeoutMillis > 0;
+      }
+
+      @Override
+      public void close() {
+        calls.add("close");
+      }
+    }
+    AsyncLineWriter w = new AsyncLineWriter(new LifecycleWriter(), 100, 1);
+    w.writeLine("a");
+    assertThat(w.flush(5000), is(true));
+    assertThat(w.flush(0), is(false));
+    w.close();
+    assertThat(calls, contains("a", "flush", "flush", "close"));
+  }
+
+  @Test
+  public void stripeCountIsRoundedUpToPowerOfTwo() {
+    AsyncLineWriter w = new AsyncLineWriter(sink, 100, 5);
+    try {
+      assertThat(w.stripeCount(), equalTo(8));
+    } finally {
+      w.close();
+    }
+  }
+
+  @Test
+  public void stripeCountIsLimited() {
+    AsyncLineWriter w = new AsyncLineWriter(sink, 100, Integer.MAX_VALUE);
+    try {
+      assertThat(w.stripeCount(), equalTo(AsyncLineWriter.MAX_STRIPES));
+    } finally {
+      w.close();
+    }
+    assertThat(StripedCounters.powerOfTwoAtLeast((1 << 30) + 1), equalTo(1 << 30));
+    assertThat(StripedCounters.powerOfTwoAtLeast(Integer.MAX_VALUE), equalTo(1 << 30));
+  }
+
+  @Test
+  public void simpleLoggingAsyncFormatsOutputTheSameWay() {
+    SimpleLogging logging = Logs.toMethod(sink).timestampFormat(null).async(100);
+    assertThat(logging.lineWriter instanceof AsyncLineWriter, is(true));
+    AsyncLineWriter w = (AsyncLineWriter)logging.lineWriter;
+    assertThat(w.wrappedWriter, equalTo((Object)sink));
+    assertThat(w.stripeCount(), equalTo(AsyncLineWriter.defaultStripeCount()));
+    LDLogger logger = LDLogger.withAdapter(logging.tag("t"), "logname");
+    logger.info("hello {}", "there");
+    w.close();
+    assertThat(lines, contains("{t} [logname] INFO: hello there"));
+  }
+}
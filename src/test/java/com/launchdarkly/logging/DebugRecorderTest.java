@@ -0,0 +1,150 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+@SuppressWarnings("javadoc")
+public class DebugRecorderTest extends BaseTest {
+  @Test
+  public void lowerLevelsAreNotWrittenWithoutAnError() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.debug("a");
+    logger.info("b");
+    logger.warn("c");
+    assertThat(sink.getMessageStrings(), contains("WARN:c"));
+  }
+
+  @Test
+  public void recordedMessagesAreWrittenBeforeError() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.debug("a");
+    logger.info("b={}", "x");
+    logger.debug("c={},{}", "x", 2);
+    logger.info("d={},{},{}", "x", 2, true);
+    logger.error("oops");
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:a", "INFO:b=x", "DEBUG:c=x,2", "INFO:d=x,2,true", "ERROR:oops"));
+
+    logger.error("again");
+    assertThat(sink.getMessageStrings(), hasSize(6));
+  }
+
+  @Test
+  public void errorWithParametersAlsoTriggersDump() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.debug("a");
+    logger.error("e={}", 1);
+    logger.debug("b");
+    logger.error("e={},{}", 1, 2);
+    logger.debug("c");
+    logger.error("e={},{},{}", 1, 2, 3);
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:a", "ERROR:e=1", "DEBUG:b", "ERROR:e=1,2", "DEBUG:c", "ERROR:e=1,2,3"));
+  }
+
+  @Test
+  public void onlyMostRecentMessagesAreKept() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 3), "logname");
+    for (int i = 0; i < 10; i++) {
+      logger.debug("m{}", i);
+    }
+    logger.error("oops");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:m7", "DEBUG:m8", "DEBUG:m9", "ERROR:oops"));
+  }
+
+  @Test
+  public void messagesFromAllChannelsAreWrittenToTheirOwnChannel() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger1 = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    LDLogger logger2 = logger1.subLogger("sub");
+    logger1.debug("a");
+    logger2.debug("b");
+    logger2.error("oops");
+    assertThat(sink.getMessages(), hasSize(3));
+    assertThat(sink.getMessages().get(0).getLoggerName(), equalTo("logname"));
+    assertThat(sink.getMessages().get(1).getLoggerName(), equalTo("logname.sub"));
+    assertThat(sink.getMessages().get(2).getLoggerName(), equalTo("logname.sub"));
+  }
+
+  @Test
+  public void longMessagesAreTruncated() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    StringBuilder longText = new StringBuilder();
+    for (int i = 0; i < DebugRecorder.MAX_CHARS + 10; i++) {
+      longText.append('x');
+    }
+    logger.debug(longText);
+    logger.debug("{}", longText);
+    logger.error("oops");
+    String expected = "DEBUG:" + longText.substring(0, DebugRecorder.MAX_CHARS);
+    assertThat(sink.getMessageStrings(), contains(expected, expected, "ERROR:oops"));
+  }
+
+  @Test
+  public void formatRulesAreSameAsSimpleFormat() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.debug("a\\{}b{}c{}", "x");
+    logger.debug("{}", (Object)null);
+    logger.debug((Object)null);
+    logger.debug("no placeholders", "x", "y");
+    logger.error("oops");
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:" + SimpleFormat.format("a\\{}b{}c{}", "x"),
+        "DEBUG:",
+        "DEBUG:",
+        "DEBUG:no placeholders",
+        "ERROR:oops"));
+  }
+
+  @Test
+  public void recordedMessageWithThrowableIncludesStacktrace() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.debug(new Exception("boom"), "a{}", "b");
+    logger.debug((Throwable)null, "c");
+    assertThat(sink.getMessages(), hasSize(0));
+    logger.error("oops");
+    List<String> messages = sink.getMessageStrings();
+    assertThat(messages, hasSize(3));
+    assertThat(messages.get(0), startsWith("DEBUG:ab" + System.lineSeparator() + "java.lang.Exception: boom"));
+    assertThat(messages.get(1), equalTo("DEBUG:c"));
+  }
+
+  @Test
+  public void throwableIsForwardedAtHigherLevels() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(sink, LDLogLevel.WARN, 10), "logname");
+    logger.info("a");
+    logger.warn(new Exception("w"), "b");
+    assertThat(sink.calls, contains("WARN:b|java.lang.Exception: w"));
+    logger.error(new Exception("e"), "c");
+    assertThat(sink.calls, contains("WARN:b|java.lang.Exception: w", "INFO:a", "ERROR:c|java.lang.Exception: e"));
+  }
+
+  @Test
+  public void disabledLevelsAreNotRecorded() {
+    LogCapture sink = Logs.capture();
+    LDLogAdapter filtered = Logs.level(sink, LDLogLevel.INFO);
+    LDLogger logger = LDLogger.withAdapter(Logs.debugRecorder(filtered, LDLogLevel.WARN, 10), "logname");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+    logger.debug("a");
+    logger.info("b");
+    logger.error("oops");
+    assertThat(sink.getMessageStrings(), contains("INFO:b", "ERROR:oops"));
+  }
+}
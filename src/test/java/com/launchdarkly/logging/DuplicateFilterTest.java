@@ -0,0 +1,160 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class DuplicateFilterTest extends BaseTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final LogCapture sink = Logs.capture();
+
+  private static String repeated(LDLogLevel level, long count, long millis, String format) {
+    return level + ":" + SimpleFormat.format(DuplicateFilter.REPEATED_MESSAGE_FORMAT, count, millis, format);
+  }
+
+  @Test
+  public void repeatsAreSuppressedAndReportedOnFlush() {
+    LDLogAdapter adapter = Logs.suppressDuplicates(sink, 60000);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    for (int i = 0; i < 4; i++) {
+      logger.warn("retry {}", i);
+    }
+    assertThat(sink.getMessageStrings(), contains("WARN:retry 0"));
+
+    Logs.flush(adapter, 0);
+    assertThat(sink.getMessages().size(), is(2));
+    assertThat(sink.getMessageStrings().get(1).startsWith("WARN:[Message repeated 3 times in the last "), is(true));
+    assertThat(sink.getMessageStrings().get(1).endsWith(" ms: retry {}]"), is(true));
+  }
+
+  @Test
+  public void allOverloadsAreFiltered() {
+    // Each overload gets its own filter, since two messages that hash to the same slot of one
+    // filter's table would replace each other and both be logged again.
+    for (int overload = 0; overload < 5; overload++) {
+      LDLogger logger = LDLogger.withAdapter(Logs.suppressDuplicates(sink, 60000), "logname");
+      for (int i = 0; i < 2; i++) {
+        switch (overload) {
+        case 0:
+          logger.info("a");
+          break;
+        case 1:
+          logger.info("b{}", 1);
+          break;
+        case 2:
+          logger.info("c{}{}", 1, 2);
+          break;
+        case 3:
+          logger.info("d{}{}{}", 1, 2, 3);
+          break;
+        default:
+          logger.info(new Exception("x"), "e");
+          break;
+        }
+      }
+    }
+    assertThat(sink.getMessageStrings().size(), is(5));
+  }
+
+  @Test
+  public void differentLevelsNamesAndFormatsAreDistinct() {
+    LDLogAdapter adapter = Logs.suppressDuplicates(sink, 60000);
+    LDLogger logger1 = LDLogger.withAdapter(adapter, "a");
+    LDLogger logger2 = LDLogger.withAdapter(adapter, "b");
+    logger1.info("x{}", 1);
+    logger1.warn("x{}", 2);
+    logger2.info("x{}", 3);
+    logger1.info("y{}", 4);
+    logger1.info("x{}", 5);
+    assertThat(sink.getMessageStrings(), contains("INFO:x1", "WARN:x2", "INFO:x3", "INFO:y4"));
+  }
+
+  @Test
+  public void nonStringMessagesAreNotFiltered() {
+    LDLogger logger = LDLogger.withAdapter(Logs.suppressDuplicates(sink, 60000), "logname");
+    Object message = new StringBuilder("m");
+    logger.info(message);
+    logger.info(message);
+    assertThat(sink.getMessageStrings(), contains("INFO:m", "INFO:m"));
+  }
+
+  @Test
+  public void suppressedMessagesAreNotFormatted() {
+    final AtomicInteger calls = new AtomicInteger();
+    Object param = new Object() {
+      @Override
+      public String toString() {
+        calls.incrementAndGet();
+        return "x";
+      }
+    };
+    LDLogger logger = LDLogger.withAdapter(Logs.suppressDuplicates(sink, 60000), "logname");
+    for (int i = 0; i < 5; i++) {
+      logger.info("{}", param);
+    }
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void disabledLevelsAreNotCounted() {
+    LDLogAdapter adapter = Logs.suppressDuplicates(Logs.level(sink, LDLogLevel.INFO), 60000);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.debug("a");
+    logger.debug("a");
+    Logs.flush(adapter, 0);
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+    assertThat(sink.getMessageStrings(), empty());
+  }
+
+  @Test
+  public void messageIsLoggedAgainWithSummaryAfterWindowEnds() {
+    DuplicateFilter filter = new DuplicateFilter(sink, 10);
+    LDLogAdapter.Channel channel = sink.newChannel("logname");
+    String format = "a{}";
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 0), is(true));
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 5 * MS), is(false));
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 10 * MS - 1), is(false));
+    assertThat(sink.getMessageStrings(), empty());
+
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 10 * MS), is(true));
+    assertThat(sink.getMessageStrings(), contains(repeated(LDLogLevel.WARN, 2, 10, format)));
+
+    // no summary if there were no repeats in the window
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 30 * MS), is(true));
+    assertThat(sink.getMessageStrings().size(), is(1));
+  }
+
+  @Test
+  public void formatStringsAreComparedByIdentity() {
+    DuplicateFilter filter = new DuplicateFilter(sink, 10);
+    LDLogAdapter.Channel channel = sink.newChannel("logname");
+    String format1 = "a{}";
+    String format2 = new String(format1);
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format1, 0), is(true));
+    assertThat(filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format2, 0), is(true));
+  }
+
+  @Test
+  public void evictedEntryWritesSummary() {
+    DuplicateFilter filter = new DuplicateFilter(sink, 10);
+    LDLogAdapter.Channel channel = sink.newChannel("logname");
+    String format = "a{}";
+    filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 0);
+    filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, format, 0);
+    // Find another format string that uses the same slot; with a table of this size, one of
+    // a few thousand strings will.
+    for (int i = 0; sink.getMessages().isEmpty(); i++) {
+      filter.firstOccurrence(channel, "logname", LDLogLevel.WARN, "b" + i, MS);
+    }
+    assertThat(sink.getMessageStrings(), contains(repeated(LDLogLevel.WARN, 1, 1, format)));
+  }
+}
@@ -0,0 +1,127 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+@SuppressWarnings("javadoc")
+public class ErrorEscalationTest extends BaseTest {
+  private static final long LONG_TIME = TimeUnit.HOURS.toNanos(1);
+
+  private final LogCapture sink = Logs.capture();
+
+  @Test
+  public void actsAsLevelFilterBeforeAnyError() {
+    LDLogger logger = LDLogger.withAdapter(new ErrorEscalation(sink, LDLogLevel.INFO, LONG_TIME), "a");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+    logger.debug("a");
+    logger.info("b");
+    logger.warn("c");
+    assertThat(sink.getMessageStrings(), contains("INFO:b", "WARN:c"));
+  }
+
+  @Test
+  public void errorEnablesAllLevelsForLoggerAndSubLoggers() {
+    LDLogger logger = LDLogger.withAdapter(new ErrorEscalation(sink, LDLogLevel.WARN, LONG_TIME), "a");
+    LDLogger sub = logger.subLogger("b");
+    LDLogger subSub = sub.subLogger("c");
+    LDLogger sibling = logger.subLogger("x");
+    LDLogger similarName = LDLogger.withAdapter(logger.adapter, "a.bb");
+
+    sub.error("failed");
+    assertThat(sub.isEnabled(LDLogLevel.DEBUG), is(true));
+    assertThat(subSub.isEnabled(LDLogLevel.DEBUG), is(true));
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(sibling.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(similarName.isEnabled(LDLogLevel.DEBUG), is(false));
+
+    sub.debug("b1");
+    subSub.info("c1");
+    logger.debug("a1");
+    sibling.info("x1");
+    assertThat(sink.getMessageStrings(), contains("ERROR:failed", "DEBUG:b1", "INFO:c1"));
+  }
+
+  @Test
+  public void subLoggerCreatedBeforeParentIsStillEscalated() {
+    ErrorEscalation escalation = new ErrorEscalation(sink, LDLogLevel.INFO, LONG_TIME);
+    LDLogAdapter.Channel child = escalation.newChannel("a.b.c");
+    LDLogAdapter.Channel parent = escalation.newChannel("a");
+    parent.log(LDLogLevel.ERROR, "failed");
+    assertThat(child.isEnabled(LDLogLevel.DEBUG), is(true));
+    assertThat(escalation.nodeFor("a.b.c").parent.parent, sameInstance(escalation.nodeFor("a")));
+  }
+
+  @Test
+  public void allLogMethodsAreFilteredAndEscalate() {
+    ErrorEscalation escalation = new ErrorEscalation(sink, LDLogLevel.INFO, LONG_TIME);
+    LDLogAdapter.Channel channel = escalation.newChannel("a");
+    channel.log(LDLogLevel.DEBUG, "{}", "a");
+    channel.log(LDLogLevel.DEBUG, "{}{}", "b", "c");
+    channel.log(LDLogLevel.DEBUG, "{}{}{}", "d", "e", "f");
+    channel.log(LDLogLevel.DEBUG, new Exception("x"), "g");
+    channel.log(LDLogLevel.ERROR, new Exception("x"), "h");
+    channel.log(LDLogLevel.DEBUG, "{}", "a");
+    channel.log(LDLogLevel.DEBUG, "{}{}", "b", "c");
+    channel.log(LDLogLevel.DEBUG, "{}{}{}", "d", "e", "f");
+    channel.log(LDLogLevel.DEBUG, new Exception("x"), "g");
+    assertThat(sink.getMessageStrings().get(0), startsWith("ERROR:h"));
+    assertThat(sink.getMessageStrings().subList(1, 4), contains("DEBUG:a", "DEBUG:bc", "DEBUG:def"));
+    assertThat(sink.getMessageStrings().get(4), startsWith("DEBUG:g"));
+    assertThat(sink.getMessages().size(), is(5));
+  }
+
+  @Test
+  public void escalationEnds() throws Exception {
+    ErrorEscalation escalation = new ErrorEscalation(sink, LDLogLevel.INFO, TimeUnit.MILLISECONDS.toNanos(1));
+    LDLogAdapter.Channel channel = escalation.newChannel("a");
+    channel.log(LDLogLevel.ERROR, "failed");
+    Thread.sleep(5);
+    assertThat(channel.isEnabled(LDLogLevel.DEBUG), is(false));
+  }
+
+  @Test
+  public void escalationOfOneLoggerDoesNotEndWhenAnotherOneEnds() {
+    ErrorEscalation escalation = new ErrorEscalation(sink, LDLogLevel.INFO, LONG_TIME);
+    ErrorEscalation.Node a = escalation.nodeFor("a");
+    ErrorEscalation.Node b = escalation.nodeFor("b");
+    long now = System.nanoTime();
+    escalation.escalate(a, now);
+    escalation.escalate(b, now - LONG_TIME / 2);
+    assertThat(escalation.isEscalated(a, now + LONG_TIME - 1), is(true));
+    assertThat(escalation.isEscalated(b, now + LONG_TIME - 1), is(false));
+    assertThat(escalation.isEscalated(a, now + LONG_TIME), is(false));
+  }
+
+  @Test
+  public void underlyingAdapterStillFilters() {
+    ErrorEscalation escalation = new ErrorEscalation(Logs.level(sink, LDLogLevel.INFO), LDLogLevel.INFO, LONG_TIME);
+    LDLogAdapter.Channel channel = escalation.newChannel("a");
+    channel.log(LDLogLevel.ERROR, "failed");
+    channel.log(LDLogLevel.DEBUG, "a");
+    assertThat(channel.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(sink.getMessageStrings(), contains("ERROR:failed"));
+  }
+
+  @Test
+  public void escalateOnErrorUsesMilliseconds() {
+    LDLogAdapter adapter = Logs.escalateOnError(sink, null, 60000);
+    LDLogAdapter.Channel channel = adapter.newChannel("a");
+    channel.log(LDLogLevel.DEBUG, "a");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a"));
+
+    ErrorEscalation escalation = (ErrorEscalation)Logs.escalateOnError(sink, LDLogLevel.INFO, 60000);
+    ErrorEscalation.Node node = escalation.nodeFor("a");
+    long now = System.nanoTime();
+    escalation.escalate(node, now);
+    assertThat(escalation.isEscalated(node, now + TimeUnit.SECONDS.toNanos(59)), is(true));
+    assertThat(escalation.isEscalated(node, now + TimeUnit.SECONDS.toNanos(60)), is(false));
+  }
+}
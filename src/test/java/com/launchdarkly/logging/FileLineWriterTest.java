@@ -0,0 +1,156 @@
+package com.launchdarkly.logging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class FileLineWriterTest extends BaseTest {
+  private static final String NL = System.lineSeparator();
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("FileLineWriterTest", ".log");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void writesLines() throws IOException {
+    FileLineWriter w = new FileLineWriter(file);
+    try {
+      w.writeLine("a");
+      w.writeLines(Arrays.asList("b", "", "c\u00e9"));
+    } finally {
+      w.close();
+    }
+    assertThat(readFile(), equalTo("a" + NL + "b" + NL + NL + "c\u00e9" + NL));
+  }
+
+  @Test
+  public void appendsToExistingFile() throws IOException {
+    FileLineWriter w1 = new FileLineWriter(file);
+    w1.writeLine("a");
+    w1.close();
+    FileLineWriter w2 = new FileLineWriter(file);
+    w2.writeLine("b");
+    w2.close();
+    assertThat(readFile(), equalTo("a" + NL + "b" + NL));
+  }
+
+  @Test
+  public void writesLargeBatch() throws IOException {
+    List<String> lines = new ArrayList<>();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      lines.add("line " + i);
+      expected.append("line ").append(i).append(NL);
+    }
+    FileLineWriter w = new FileLineWriter(file);
+    try {
+      w.writeLines(lines);
+    } finally {
+      w.close();
+    }
+    assertThat(readFile(), equalTo(expected.toString()));
+  }
+
+  @Test
+  public void interruptedThreadDoesNotStopLaterOutput() throws Exception {
+    final FileLineWriter w = new FileLineWriter(file);
+    try {
+      Thread t = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Thread.currentThread().interrupt();
+          w.writeLine("a");
+        }
+      });
+      t.start();
+      t.join();
+      w.writeLine("b");
+    } finally {
+      w.close();
+    }
+    assertThat(readFile(), equalTo("a" + NL + "b" + NL));
+  }
+
+  @Test
+  public void writesAfterClose() throws IOException {
+    FileLineWriter w = new FileLineWriter(file);
+    w.writeLine("a");
+    w.close();
+    w.writeLine("b");
+    assertThat(readFile(), equalTo("a" + NL + "b" + NL));
+  }
+
+  @Test
+  public void errorsAreIgnored() throws IOException {
+    FileLineWriter w = new FileLineWriter(file);
+    w.close();
+    // the file can no longer be opened, since a directory has taken its place
+    assertThat(file.delete() && file.mkdir(), is(true));
+    w.writeLine("a");
+  }
+
+  @Test
+  public void logsToFile() throws IOException {
+    SimpleLogging adapter = Logs.toFile(file).timestampFormat(null);
+    assertThat(((FileLineWriter)adapter.lineWriter).file, equalTo(file));
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.info("hello");
+    assertThat(adapter.flush(0), is(true));
+    adapter.close();
+    assertThat(readFile(), equalTo("[logname] INFO: hello" + NL));
+  }
+
+  @Test
+  public void asyncAdapterWritesToFileAfterClose() throws IOException {
+    SimpleLogging adapter = Logs.toFile(file).timestampFormat(null).async(100);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.info("before");
+    adapter.close();
+    logger.info("after");
+    assertThat(readFile(), equalTo("[logname] INFO: before" + NL + "[logname] INFO: after" + NL));
+  }
+
+  @Test
+  public void closeMoreThanOnce() throws IOException {
+    FileLineWriter w = new FileLineWriter(file);
+    w.close();
+    w.close();
+  }
+
+  private String readFile() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buf = new byte[4096];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        out.write(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    return new String(out.toByteArray(), "UTF-8");
+  }
+}
@@ -0,0 +1,75 @@
+package com.launchdarkly.logging;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs some code while JDK Flight Recorder is recording, and returns the recorded events.
+ * <p>
+ * The Flight Recorder API is accessed by reflection, because test code must also compile in
+ * Java 8 and Android. Tests should check {@link #isAvailable()} first.
+ */
+@SuppressWarnings("javadoc")
+public final class FlightRecording {
+  private FlightRecording() {}
+
+  public static boolean isAvailable() {
+    try {
+      Class.forName("jdk.jfr.Recording");
+      Class.forName("jdk.jfr.consumer.RecordingFile");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Records events while running an action.
+   *
+   * @param settings Flight Recorder settings, such as "jdk.VirtualThreadPinned#enabled" = "true"
+   * @param eventName the name of the event type to return
+   * @param fieldNames the event fields to return
+   * @param action the code to run
+   * @return a map of field values for each matching event
+   */
+  public static List<Map<String, Object>> record(Map<String, String> settings, String eventName,
+      String[] fieldNames, Runnable action) throws Exception {
+    Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+    Class<?> pathClass = Class.forName("java.nio.file.Path");
+    Object recording = recordingClass.getConstructor().newInstance();
+    File file = File.createTempFile("FlightRecording", ".jfr");
+    try {
+      recordingClass.getMethod("setSettings", Map.class).invoke(recording, settings);
+      recordingClass.getMethod("start").invoke(recording);
+      action.run();
+      recordingClass.getMethod("stop").invoke(recording);
+      Object path = File.class.getMethod("toPath").invoke(file);
+      recordingClass.getMethod("dump", pathClass).invoke(recording, path);
+
+      List<?> recorded = (List<?>)Class.forName("jdk.jfr.consumer.RecordingFile")
+          .getMethod("readAllEvents", pathClass).invoke(null, path);
+      Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+      Method getTypeName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+      Method getValue = Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getValue", String.class);
+      List<Map<String, Object>> ret = new ArrayList<>();
+      for (Object event: recorded) {
+        if (!eventName.equals(getTypeName.invoke(getEventType.invoke(event)))) {
+          continue;
+        }
+        Map<String, Object> fields = new HashMap<>();
+        for (String field: fieldNames) {
+          fields.put(field, getValue.invoke(event, field));
+        }
+        ret.add(fields);
+      }
+      return ret;
+    } finally {
+      recordingClass.getMethod("close").invoke(recording);
+      file.delete();
+    }
+  }
+}
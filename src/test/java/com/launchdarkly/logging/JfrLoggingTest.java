@@ -0,0 +1,129 @@
+package com.launchdarkly.logging;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SuppressWarnings("javadoc")
+public class JfrLoggingTest extends BaseTest {
+  private static final String EVENT_NAME = "com.launchdarkly.logging.LogCall";
+
+  @Test
+  public void outputIsForwarded() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.withFlightRecorderEvents(sink), "logname");
+    logger.debug("a");
+    logger.info("b={}", "x");
+    logger.warn("c={},{}", "x", 2);
+    logger.error("d={},{},{}", "x", 2, true);
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a", "INFO:b=x", "WARN:c=x,2", "ERROR:d=x,2,true"));
+  }
+
+  @Test
+  public void throwableIsForwarded() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(Logs.withFlightRecorderEvents(sink), "logname");
+    logger.warn(new Exception("boom"), "a{}", "b");
+    assertThat(sink.calls, contains("WARN:ab|java.lang.Exception: boom"));
+  }
+
+  @Test
+  public void adapterIsUnchangedBeforeJava11() {
+    Assume.assumeFalse(classExists("java.lang.ModuleLayer"));
+    LDLogAdapter adapter = Logs.capture();
+    assertThat(Logs.withFlightRecorderEvents(adapter), sameInstance(adapter));
+  }
+
+  @Test
+  public void eventsAreRecordedForEnabledLevels() throws Exception {
+    LogCapture sink = Logs.capture();
+    LDLogAdapter filtered = Logs.level(sink, LDLogLevel.INFO);
+    LDLogAdapter adapter = Logs.withFlightRecorderEvents(filtered);
+    // Events are only available if we are running with the Java 11 version of the classes
+    Assume.assumeTrue(adapter != filtered);
+    final LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+
+    List<Map<String, Object>> events = record(new Runnable() {
+      @Override
+      public void run() {
+        logger.debug("not enabled");
+        logger.info("a");
+        logger.info("b={}", "xx");
+        logger.warn("c={},{}", "x", 2);
+        logger.error("d={},{},{}", "x", 2, true);
+        logger.debug(new Exception(), "not enabled");
+        logger.warn(new Exception(), "e={}", "xyz");
+      }
+    });
+
+    assertThat(sink.getMessages(), hasSize(5));
+    assertThat(events, hasSize(5));
+    assertThat(events.get(0).get("loggerName"), equalTo((Object)"logname"));
+    assertThat(events.get(0).get("level"), equalTo((Object)"INFO"));
+    assertThat(events.get(0).get("format"), equalTo((Object)"a"));
+    assertThat(events.get(0).get("renderedLength"), equalTo((Object)1));
+    assertThat(events.get(1).get("format"), equalTo((Object)"b={}"));
+    assertThat(events.get(1).get("renderedLength"), equalTo((Object)4));
+    assertThat(events.get(2).get("level"), equalTo((Object)"WARN"));
+    assertThat(events.get(2).get("renderedLength"), equalTo((Object)5));
+    assertThat(events.get(3).get("level"), equalTo((Object)"ERROR"));
+    assertThat(events.get(3).get("renderedLength"), equalTo((Object)10));
+    assertThat(events.get(4).get("format"), equalTo((Object)"e={}"));
+    assertThat(events.get(4).get("renderedLength"), equalTo((Object)5));
+  }
+
+  @Test
+  public void nonStringMessageHasNoFormat() throws Exception {
+    LogCapture sink = Logs.capture();
+    LDLogAdapter adapter = Logs.withFlightRecorderEvents(sink);
+    Assume.assumeTrue(adapter != sink);
+    final LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+
+    List<Map<String, Object>> events = record(new Runnable() {
+      @Override
+      public void run() {
+        logger.info(12345);
+        logger.info(null);
+      }
+    });
+
+    assertThat(events, hasSize(2));
+    assertThat(events.get(0).get("format"), nullValue());
+    assertThat(events.get(0).get("renderedLength"), equalTo((Object)5));
+    assertThat(events.get(1).get("renderedLength"), equalTo((Object)0));
+  }
+
+  @Test
+  public void noEventsWithoutRecording() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.withFlightRecorderEvents(sink), "logname");
+    logger.info("a");
+    assertThat(sink.getMessageStrings(), contains("INFO:a"));
+  }
+
+  private static List<Map<String, Object>> record(Runnable action) throws Exception {
+    Map<String, String> settings = new HashMap<>();
+    settings.put(EVENT_NAME + "#enabled", "true");
+    return FlightRecording.record(settings, EVENT_NAME,
+        new String[] { "loggerName", "level", "format", "renderedLength" }, action);
+  }
+
+  private static boolean classExists(String name) {
+    try {
+      Class.forName(name);
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+}
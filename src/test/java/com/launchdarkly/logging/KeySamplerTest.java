@@ -0,0 +1,166 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+@SuppressWarnings("javadoc")
+public class KeySamplerTest extends BaseTest {
+  private final LogCapture sink = Logs.capture();
+
+  // Finds a key that is or is not sampled at the given rate.
+  private static String key(KeySampler sampler, boolean sampled) {
+    for (int i = 0; ; i++) {
+      if (sampler.isSampled("key" + i) == sampled) {
+        return "key" + i;
+      }
+    }
+  }
+
+  @Test
+  public void sampledKeyWritesAllLevels() {
+    KeySampler sampler = new KeySampler(sink, 0.5, LDLogLevel.DEBUG);
+    LDLogger logger = LDLogger.withAdapter(sampler, "logname").withSamplingKey(key(sampler, true));
+    logger.debug("a");
+    logger.info("b");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(true));
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a", "INFO:b"));
+  }
+
+  @Test
+  public void unsampledKeyWritesOnlyLevelsAboveSampledLevel() {
+    KeySampler sampler = new KeySampler(sink, 0.5, LDLogLevel.INFO);
+    LDLogger logger = LDLogger.withAdapter(sampler, "logname").withSamplingKey(key(sampler, false));
+    logger.debug("a");
+    logger.info("b");
+    logger.warn("c");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.WARN), is(true));
+    assertThat(sink.getMessageStrings(), contains("WARN:c"));
+  }
+
+  @Test
+  public void sampledLevelDefaultsToDebug() {
+    KeySampler sampler = new KeySampler(sink, 0.5, null);
+    LDLogger logger = LDLogger.withAdapter(sampler, "logname").withSamplingKey(key(sampler, false));
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+  }
+
+  @Test
+  public void unsampledKeyWritesNothingIfAllLevelsAreSampled() {
+    for (LDLogLevel sampledLevel: new LDLogLevel[] { LDLogLevel.ERROR, LDLogLevel.NONE }) {
+      KeySampler sampler = new KeySampler(sink, 0.5, sampledLevel);
+      LDLogger logger = LDLogger.withAdapter(sampler, "logname").withSamplingKey(key(sampler, false));
+      logger.error("a");
+      assertThat(logger.isEnabled(LDLogLevel.ERROR), is(false));
+    }
+    assertThat(sink.getMessages().size(), is(0));
+  }
+
+  @Test
+  public void loggerWithoutKeyIsNotSampled() {
+    LDLogger logger = LDLogger.withAdapter(Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG), "logname");
+    logger.debug("a");
+    logger.withSamplingKey(null).debug("b");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a", "DEBUG:b"));
+  }
+
+  @Test
+  public void subLoggerKeepsSamplingKey() {
+    LDLogger logger = LDLogger.withAdapter(Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG), "logname")
+        .withSamplingKey("x").subLogger("sub");
+    logger.debug("a");
+    logger.info("b");
+    assertThat(sink.getMessageStrings(), contains("INFO:b"));
+    assertThat(sink.getMessages().get(0).getLoggerName(), is("logname.sub"));
+  }
+
+  @Test
+  public void keyIsUsedIfSamplerIsWrappedInOtherAdapters() {
+    LDLogAdapter sampler = Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG);
+    LDLogAdapter adapter = Logs.governed(Logs.level(sampler, LDLogLevel.DEBUG), LDLogLevel.DEBUG, 1000000, 1000000);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.withSamplingKey("x").debug("a");
+    logger.debug("b");
+    assertThat(logger.withSamplingKey("x").isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(sink.getMessageStrings(), contains("DEBUG:b"));
+  }
+
+  @Test
+  public void keyIsOnlySeenWhileItsLoggerIsCreated() {
+    LDLogAdapter adapter = Logs.level(Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG), LDLogLevel.DEBUG);
+    LDLogger.withAdapter(adapter, "logname").withSamplingKey("x");
+    LDLogger.withAdapter(adapter, "logname").debug("a");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a"));
+  }
+
+  @Test
+  public void loggerCreatedByAdapterDoesNotGetOuterKey() {
+    final LDLogAdapter sampler = Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG);
+    // An adapter that creates a logger without a key while the outer logger's channel is
+    // being created
+    LDLogAdapter adapter = new LDLogAdapter() {
+      @Override
+      public Channel newChannel(String name) {
+        LDLogger.withAdapter(sampler, "inner").debug("a");
+        return sampler.newChannel(name);
+      }
+    };
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.withSamplingKey("x").debug("b");
+    // Creating each outer logger also creates an inner logger that has no key, so both write
+    // "a"; the outer key still applies to the keyed outer logger afterward, so "b" is not written.
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a", "DEBUG:a"));
+  }
+
+  @Test
+  public void scopeKeepsSamplingKey() {
+    LDLogger logger = LDLogger.withAdapter(Logs.sampledByKey(sink, 0, LDLogLevel.DEBUG), "logname")
+        .withSamplingKey("x");
+    try (LogScope scope = logger.beginScope()) {
+      scope.getLogger().debug("a");
+      scope.getLogger().info("b");
+      assertThat(scope.getLogger().isEnabled(LDLogLevel.DEBUG), is(false));
+      scope.fail();
+    }
+    assertThat(sink.getMessageStrings(), contains("INFO:b"));
+  }
+
+  @Test
+  public void rateZeroAndOneSampleNoKeysOrAllKeys() {
+    KeySampler none = new KeySampler(sink, -1, LDLogLevel.DEBUG);
+    KeySampler all = new KeySampler(sink, 2, LDLogLevel.DEBUG);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(none.isSampled("key" + i), is(false));
+      assertThat(all.isSampled("key" + i), is(true));
+    }
+  }
+
+  @Test
+  public void sampledFractionIsCloseToRate() {
+    KeySampler sampler = new KeySampler(sink, 0.01, LDLogLevel.DEBUG);
+    int sampled = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (sampler.isSampled("user-" + i)) {
+        sampled++;
+      }
+    }
+    assertThat(sampled, allOf(greaterThan(800), lessThan(1200)));
+  }
+
+  @Test
+  public void hashIsDeterministicAndSensitiveToEveryCharacter() {
+    assertThat(KeySampler.hash("user-1"), is(KeySampler.hash(new String("user-1"))));
+    assertThat(KeySampler.hash("user-1"), not(KeySampler.hash("user-2")));
+    assertThat(KeySampler.hash("auser"), not(KeySampler.hash("buser")));
+    assertThat(KeySampler.hash(""), is(KeySampler.hash("")));
+  }
+}
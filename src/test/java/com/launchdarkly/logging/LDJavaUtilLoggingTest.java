@@ -1,5 +1,6 @@
 package com.launchdarkly.logging;
 
+import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -7,18 +8,28 @@ import org.junit.runners.Parameterized;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import java.util.logging.StreamHandler;
 
 import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static com.launchdarkly.logging.TestHelpers.writeThrowableMessage;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 @SuppressWarnings("javadoc")
 @RunWith(Parameterized.class)
@@ -28,22 +39,30 @@ public class LDJavaUtilLoggingTest extends ParameterizedTestWithLevel {
       "java.util.logging.SimpleFormatter.format=[%3$s] %4$s: %5$s%n\n" +
       ".level=ALL\n";
   private static final ByteArrayOutputStream logOutput;
-  private static final StreamHandler streamHandler;
+  private static StreamHandler streamHandler;
+  // Java serialization logs its own debug output, which would otherwise appear in logOutput;
+  // we hold a reference so the logger and its level are not garbage-collected.
+  private static final Logger serializationLogger = Logger.getLogger("java.io.serialization");
   
   static {
     // java.util.logging is configured statically, but since we're not using it anywhere in our
     // unit tests except in this class, it's safe to set its global configuration to redirect
     // all j.u.l output to our logOutput buffer.
     logOutput = new ByteArrayOutputStream();
+    configure();
+  }
+
+  // Reloading the configuration closes all existing handlers, so we create a new one each time.
+  private static void configure() {
     try {
       LogManager.getLogManager().readConfiguration(new ByteArrayInputStream(LOGGING_CONFIGURATION.getBytes()));
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
-    Logger rootLogger = Logger.getLogger("");
     streamHandler = new StreamHandler(logOutput, new SimpleFormatter());
     streamHandler.setLevel(Level.ALL);
-    rootLogger.addHandler(streamHandler);
+    Logger.getLogger("").addHandler(streamHandler);
+    serializationLogger.setLevel(Level.OFF);
   }
   
   private final LDLogLevel outputLevel;
@@ -76,6 +95,203 @@ public class LDJavaUtilLoggingTest extends ParameterizedTestWithLevel {
     assertThat(logger.isEnabled(outputLevel), is(true));
   }
 
+  @Test
+  public void recordsHaveLoggerNameAndNoSource() {
+    List<LogRecord> records = captureRecords("logname.records", null);
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLogging(), "logname.records");
+    writeTestMessages(logger, outputLevel);
+
+    assertThat(records.size(), is(5));
+    for (LogRecord r: records) {
+      assertThat(r.getLoggerName(), is("logname.records"));
+      assertThat(r.getLevel(), is(javaLevelFor(outputLevel)));
+      assertThat(r.getSourceClassName(), nullValue());
+      assertThat(r.getSourceMethodName(), nullValue());
+      assertThat(r.getParameters(), nullValue());
+    }
+    assertThat(records.get(0).getMessage(), is(""));
+    assertThat(records.get(1).getMessage(), is(SIMPLE_MESSAGE));
+    assertThat(records.get(2).getMessage(), is(MESSAGE_FORMAT_1_RESULT));
+    assertThat(records.get(3).getMessage(), is(MESSAGE_FORMAT_2_RESULT));
+    assertThat(records.get(4).getMessage(), is(MESSAGE_FORMAT_3_RESULT));
+  }
+
+  @Test
+  public void messageIsFormattedOnlyWhenPublishedAndOnlyOnce() {
+    final AtomicInteger toStringCalls = new AtomicInteger();
+    Object param = new Object() {
+      @Override
+      public String toString() {
+        toStringCalls.incrementAndGet();
+        return "x";
+      }
+    };
+    List<LogRecord> records = captureRecords("logname.deferred", new Filter() {
+      @Override
+      public boolean isLoggable(LogRecord record) {
+        return false;
+      }
+    });
+    LDLogAdapter.Channel channel = Logs.toJavaUtilLogging().newChannel("logname.deferred");
+    channel.log(outputLevel, "a{}", param);
+    assertThat(records.size(), is(0));
+    assertThat(toStringCalls.get(), is(0));
+
+    Logger.getLogger("logname.deferred").setFilter(null);
+    channel.log(outputLevel, "a{}", param);
+    assertThat(records.size(), is(1));
+    assertThat(toStringCalls.get(), is(0));
+    assertThat(records.get(0).getMessage(), is("ax"));
+    assertThat(records.get(0).getMessage(), is("ax"));
+    assertThat(toStringCalls.get(), is(1));
+  }
+
+  @Test
+  public void throwableIsSetOnRecord() {
+    List<LogRecord> records = captureRecords("logname.thrown", null);
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLogging(), "logname.thrown");
+    Exception e = new Exception("boom");
+    writeThrowableMessage(logger, outputLevel, e, "a{}", "b");
+    assertThat(records.size(), is(1));
+    assertThat(records.get(0).getThrown(), sameInstance((Throwable)e));
+    assertThat(records.get(0).getMessage(), is("ab"));
+    assertThat(records.get(0).getSourceClassName(), nullValue());
+  }
+
+  @Test
+  public void throwableMessageIsNotLoggedForDisabledLevel() {
+    List<LogRecord> records = captureRecords("logname.thrown.disabled", null);
+    Logger.getLogger("logname.thrown.disabled").setLevel(Level.OFF);
+    Logs.refreshJavaUtilLoggingLevels();
+    try {
+      LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLogging(), "logname.thrown.disabled");
+      writeThrowableMessage(logger, outputLevel, new Exception(), "a");
+      assertThat(records.size(), is(0));
+    } finally {
+      Logger.getLogger("logname.thrown.disabled").setLevel(null);
+      Logs.refreshJavaUtilLoggingLevels();
+    }
+  }
+
+  @Test
+  public void messageCanBeReplaced() {
+    LogRecord r = new LDJavaUtilLogging.DeferredLogRecord(Level.INFO, "a{}", new Object[] { "b" });
+    r.setMessage("c");
+    assertThat(r.getMessage(), is("c"));
+  }
+
+  @Test
+  public void recordCanBeSerialized() throws Exception {
+    LogRecord r = new LDJavaUtilLogging.DeferredLogRecord(Level.INFO, "a{}", new Object[] { "b" });
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(r);
+    out.close();
+    LogRecord copy = (LogRecord)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertThat(copy.getMessage(), is("ab"));
+    assertThat(copy.getLevel(), is(Level.INFO));
+  }
+
+  @Test
+  public void levelChangesAreSeenImmediatelyByDefault() {
+    Logger parent = Logger.getLogger("logname.immediate");
+    Logger julLogger = Logger.getLogger("logname.immediate.child");
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLogging(), "logname.immediate.child");
+    try {
+      assertThat(logger.isEnabled(outputLevel), is(true));
+      julLogger.setLevel(Level.OFF);
+      assertThat(logger.isEnabled(outputLevel), is(false));
+      julLogger.setLevel(null);
+      assertThat(logger.isEnabled(outputLevel), is(true));
+      parent.setLevel(Level.OFF);
+      assertThat(logger.isEnabled(outputLevel), is(false));
+    } finally {
+      julLogger.setLevel(null);
+      parent.setLevel(null);
+    }
+  }
+
+  @Test
+  public void levelChangesAreSeenAfterRefresh() {
+    Logger julLogger = Logger.getLogger("logname.refresh");
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLoggingWithCachedLevels(), "logname.refresh");
+    try {
+      assertThat(logger.isEnabled(outputLevel), is(true));
+      julLogger.setLevel(Level.OFF);
+      Logs.refreshJavaUtilLoggingLevels();
+      assertThat(logger.isEnabled(outputLevel), is(false));
+      julLogger.setLevel(javaLevelFor(outputLevel));
+      Logs.refreshJavaUtilLoggingLevels();
+      assertThat(logger.isEnabled(outputLevel), is(true));
+      if (outputLevel != LDLogLevel.DEBUG) {
+        assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+      }
+    } finally {
+      julLogger.setLevel(null);
+      Logs.refreshJavaUtilLoggingLevels();
+    }
+  }
+
+  @Test
+  public void parentLevelIsUsedIfLoggerHasNoLevel() {
+    Logger parent = Logger.getLogger("logname.parent");
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLoggingWithCachedLevels(), "logname.parent.child");
+    try {
+      parent.setLevel(Level.OFF);
+      Logs.refreshJavaUtilLoggingLevels();
+      assertThat(logger.isEnabled(outputLevel), is(false));
+    } finally {
+      parent.setLevel(null);
+      Logs.refreshJavaUtilLoggingLevels();
+    }
+    assertThat(logger.isEnabled(outputLevel), is(true));
+  }
+
+  @Test
+  public void reloadingConfigurationRefreshesLevels() {
+    Assume.assumeTrue(hasConfigurationListeners());
+    Logger julLogger = Logger.getLogger("logname.reload");
+    LDLogger logger = LDLogger.withAdapter(Logs.toJavaUtilLoggingWithCachedLevels(), "logname.reload");
+    julLogger.setLevel(Level.OFF);
+    Logs.refreshJavaUtilLoggingLevels();
+    assertThat(logger.isEnabled(outputLevel), is(false));
+    configure(); // resets the logger's level, and notifies listeners
+    assertThat(julLogger.getLevel(), nullValue());
+    assertThat(logger.isEnabled(outputLevel), is(true));
+  }
+
+  private static boolean hasConfigurationListeners() {
+    try {
+      LogManager.class.getMethod("addConfigurationListener", Runnable.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static List<LogRecord> captureRecords(String loggerName, Filter filter) {
+    final List<LogRecord> records = new ArrayList<>();
+    Logger julLogger = Logger.getLogger(loggerName);
+    for (Handler h: julLogger.getHandlers()) {
+      julLogger.removeHandler(h);
+    }
+    julLogger.setUseParentHandlers(false);
+    julLogger.setFilter(filter);
+    julLogger.addHandler(new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    });
+    return records;
+  }
+
   private Level javaLevelFor(LDLogLevel level) {
     switch (outputLevel) {
     case DEBUG:
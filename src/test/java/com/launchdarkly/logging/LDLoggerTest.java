@@ -2,7 +2,12 @@ package com.launchdarkly.logging;
 
 import org.junit.Test;
 
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.sameInstance;
@@ -37,9 +42,94 @@ public class LDLoggerTest extends BaseTest {
     assertThat(logger2, sameInstance(logger));
   }
   
+  @Test
+  public void throwableMethodsWriteStacktraceAfterMessageByDefault() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    Exception e = new IllegalStateException("boom");
+    String trace = LogValues.exceptionTrace(e).toString();
+    String expectedText = "a=x,b=2" + System.lineSeparator() +
+        trace.substring(0, trace.length() - System.lineSeparator().length());
+    logger.debug(e, "a={},b={}", "x", 2);
+    logger.info(e, "a={},b={}", "x", 2);
+    logger.warn(e, "a={},b={}", "x", 2);
+    logger.error(e, "a={},b={}", "x", 2);
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:" + expectedText, "INFO:" + expectedText, "WARN:" + expectedText, "ERROR:" + expectedText));
+  }
+
+  @Test
+  public void throwableMethodsWithNullThrowableWriteOnlyMessage() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    logger.warn((Throwable)null, "a={}", "x");
+    assertThat(sink.getMessageStrings(), contains("WARN:a=x"));
+  }
+
+  @Test
+  public void throwableMethodsDoNothingForDisabledLevel() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.level(sink, LDLogLevel.INFO), "logname");
+    logger.debug(new Exception(), "a");
+    assertThat(sink.getMessages(), hasSize(0));
+  }
+
+  @Test
+  public void throwableIsPassedToAdapter() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    Exception e = new Exception("boom");
+    logger.info(e, "a={}", "x");
+    assertThat(sink.calls, contains("INFO:a=x|java.lang.Exception: boom"));
+  }
+
   @Test
   public void noneLogger() {
     LDLogger logger = LDLogger.none();
     assertThat(logger.adapter, sameInstance(Logs.none()));
   }
+
+  @Test
+  public void minimumLevelPropertyIsParsed() {
+    String name = "com.launchdarkly.logging.test.minimumLevel";
+    try {
+      assertThat(LDLogger.minimumLevelFromSystemProperty(name), equalTo(LDLogLevel.DEBUG));
+      System.setProperty(name, "warn");
+      assertThat(LDLogger.minimumLevelFromSystemProperty(name), equalTo(LDLogLevel.WARN));
+      System.setProperty(name, " NONE ");
+      assertThat(LDLogger.minimumLevelFromSystemProperty(name), equalTo(LDLogLevel.NONE));
+      System.setProperty(name, "verbose");
+      assertThat(LDLogger.minimumLevelFromSystemProperty(name), equalTo(LDLogLevel.DEBUG));
+    } finally {
+      System.clearProperty(name);
+    }
+  }
+
+  @Test
+  public void minimumLevelPropertyDisablesLowerLevelsForAllLoggers() throws Exception {
+    // The property is only read when the class is initialized, so this loads a separate copy
+    // of the library's classes after setting it.
+    URL classes = LDLogger.class.getProtectionDomain().getCodeSource().getLocation();
+    System.setProperty(LDLogger.MINIMUM_LEVEL_PROPERTY, "info");
+    try (URLClassLoader loader = new URLClassLoader(new URL[] { classes },
+        ClassLoader.getSystemClassLoader().getParent())) {
+      Class<?> logsClass = loader.loadClass(Logs.class.getName());
+      Class<?> adapterClass = loader.loadClass(LDLogAdapter.class.getName());
+      Class<?> loggerClass = loader.loadClass(LDLogger.class.getName());
+      Class<?> levelClass = loader.loadClass(LDLogLevel.class.getName());
+      Object sink = logsClass.getMethod("capture").invoke(null);
+      Object logger = loggerClass.getMethod("withAdapter", adapterClass, String.class).invoke(null, sink, "logname");
+
+      loggerClass.getMethod("debug", String.class, Object[].class).invoke(logger, "a{}", new Object[] { "b" });
+      loggerClass.getMethod("info", String.class, Object[].class).invoke(logger, "c{}", new Object[] { "d" });
+      Object debug = levelClass.getField("DEBUG").get(null);
+      Object info = levelClass.getField("INFO").get(null);
+      assertThat(loggerClass.getMethod("isEnabled", levelClass).invoke(logger, debug), equalTo((Object)false));
+      assertThat(loggerClass.getMethod("isEnabled", levelClass).invoke(logger, info), equalTo((Object)true));
+      assertThat(sink.getClass().getMethod("getMessageStrings").invoke(sink),
+          equalTo((Object)Arrays.asList("INFO:cd")));
+    } finally {
+      System.clearProperty(LDLogger.MINIMUM_LEVEL_PROPERTY);
+    }
+  }
 }
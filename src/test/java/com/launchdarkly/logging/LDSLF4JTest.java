@@ -4,14 +4,24 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.slf4j.spi.LocationAwareLogger;
+
 import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static com.launchdarkly.logging.TestHelpers.writeThrowableMessage;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 import uk.org.lidalia.slf4jext.Level;
 import uk.org.lidalia.slf4jtest.LoggingEvent;
@@ -63,6 +73,31 @@ public class LDSLF4JTest extends ParameterizedTestWithLevel {
     assertThat(events.get(4).getArguments(), contains(MESSAGE_PARAM_1, MESSAGE_PARAM_2, MESSAGE_PARAM_3));
   }
   
+  @Test
+  public void throwableIsPassedToSLF4J() {
+    TestLogger targetLogger = TestLoggerFactory.getTestLogger("logname.thrown");
+    targetLogger.clearAll();
+    LDLogger logger = LDLogger.withAdapter(LDSLF4J.adapter(), "logname.thrown");
+    Exception e = new Exception("boom");
+    writeThrowableMessage(logger, outputLevel, e, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+
+    List<LoggingEvent> events = targetLogger.getAllLoggingEvents();
+    assertThat(events, hasSize(1));
+    assertThat(events.get(0).getLevel(), equalTo(slf4jLevelFor(outputLevel)));
+    assertThat(events.get(0).getMessage(), equalTo(MESSAGE_FORMAT_1));
+    assertThat(events.get(0).getThrowable().get(), sameInstance((Throwable)e));
+  }
+
+  @Test
+  public void throwableMessageIsNotLoggedForDisabledLevel() {
+    TestLogger targetLogger = TestLoggerFactory.getTestLogger("logname.thrown.disabled");
+    targetLogger.clearAll();
+    targetLogger.setEnabledLevels();
+    LDLogger logger = LDLogger.withAdapter(LDSLF4J.adapter(), "logname.thrown.disabled");
+    writeThrowableMessage(logger, outputLevel, new Exception(), "a");
+    assertThat(targetLogger.getAllLoggingEvents(), hasSize(0));
+  }
+
   @Test
   public void isEnabled() {
     String logName = "logname";
@@ -77,6 +112,115 @@ public class LDSLF4JTest extends ParameterizedTestWithLevel {
     assertThat(logger.isEnabled(outputLevel), is(false));
   }
   
+  @Test
+  public void channelsAreCachedByName() {
+    LDLogAdapter.Channel channel = LDSLF4J.adapter().newChannel("logname.cached");
+    assertThat(LDSLF4J.adapter().newChannel("logname.cached"), sameInstance(channel));
+    assertThat(LDSLF4J.adapter().newChannel("logname.other"), not(sameInstance(channel)));
+  }
+
+  @Test
+  public void locationAwareLoggerReceivesLDLoggerClassName() {
+    final List<List<Object>> calls = new ArrayList<>();
+    LocationAwareLogger fakeLogger = (LocationAwareLogger)Proxy.newProxyInstance(
+        getClass().getClassLoader(),
+        new Class<?>[] { LocationAwareLogger.class },
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("log")) {
+              // the parameter array is converted to a list so that it can be compared by value
+              calls.add(Arrays.asList(args[0], args[1], args[2], args[3],
+                  args[4] == null ? null : Arrays.asList((Object[])args[4]), args[5]));
+              return null;
+            }
+            // the level methods, such as isDebugEnabled()
+            return method.getName().equals("is" + slf4jLevelFor(outputLevel).name().charAt(0) +
+                slf4jLevelFor(outputLevel).name().substring(1).toLowerCase() + "Enabled");
+          }
+        });
+    LDLogAdapter.Channel channel = LDSLF4J.channelFor(fakeLogger);
+    assertThat(channel.isEnabled(outputLevel), is(true));
+    channel.log(outputLevel, null);
+    channel.log(outputLevel, SIMPLE_MESSAGE);
+    channel.log(outputLevel, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+    channel.log(outputLevel, MESSAGE_FORMAT_2, MESSAGE_PARAM_1, MESSAGE_PARAM_2);
+    channel.log(outputLevel, MESSAGE_FORMAT_3, MESSAGE_PARAM_1, MESSAGE_PARAM_2, MESSAGE_PARAM_3);
+    channel.log(LDLogLevel.NONE, SIMPLE_MESSAGE);
+    Exception e = new Exception("boom");
+    channel.log(outputLevel, e, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+
+    int levelInt = locationAwareLevelFor(outputLevel);
+    String fqcn = LDLogger.class.getName();
+    assertThat(calls, contains(
+        Arrays.<Object>asList(null, fqcn, levelInt, "", null, null),
+        Arrays.<Object>asList(null, fqcn, levelInt, SIMPLE_MESSAGE, null, null),
+        Arrays.<Object>asList(null, fqcn, levelInt, MESSAGE_FORMAT_1_RESULT, null, null),
+        Arrays.<Object>asList(null, fqcn, levelInt, MESSAGE_FORMAT_2_RESULT, null, null),
+        Arrays.<Object>asList(null, fqcn, levelInt, MESSAGE_FORMAT_3_RESULT, null, null),
+        Arrays.<Object>asList(null, fqcn, levelInt, MESSAGE_FORMAT_1_RESULT, null, e)
+        ));
+
+    calls.clear();
+    for (LDLogLevel otherLevel: LDLogLevel.values()) {
+      if (otherLevel != outputLevel && otherLevel != LDLogLevel.NONE) {
+        assertThat(channel.isEnabled(otherLevel), is(false));
+        channel.log(otherLevel, SIMPLE_MESSAGE);
+        channel.log(otherLevel, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+        channel.log(otherLevel, MESSAGE_FORMAT_2, MESSAGE_PARAM_1, MESSAGE_PARAM_2);
+        channel.log(otherLevel, MESSAGE_FORMAT_3, MESSAGE_PARAM_1, MESSAGE_PARAM_2, MESSAGE_PARAM_3);
+        channel.log(otherLevel, new Exception(), MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+      }
+    }
+    assertThat(calls, hasSize(0));
+  }
+
+  @Test
+  public void locationAwareLoggerThatIgnoresParametersGetsFormattedMessages() {
+    // In SLF4J 1.7, the LocationAwareLogger implementations in bindings such as slf4j-log4j12
+    // and slf4j-jdk14 write the message string as it is, and ignore the parameter array.
+    final List<String> messages = new ArrayList<>();
+    final List<Throwable> throwables = new ArrayList<>();
+    LocationAwareLogger fakeLogger = (LocationAwareLogger)Proxy.newProxyInstance(
+        getClass().getClassLoader(),
+        new Class<?>[] { LocationAwareLogger.class },
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("log")) {
+              messages.add((String)args[3]);
+              throwables.add((Throwable)args[5]);
+              return null;
+            }
+            return method.getName().startsWith("is");
+          }
+        });
+    LDLogAdapter.Channel channel = LDSLF4J.channelFor(fakeLogger);
+    Exception e = new Exception("boom");
+    channel.log(outputLevel, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+    channel.log(outputLevel, MESSAGE_FORMAT_2, MESSAGE_PARAM_1, MESSAGE_PARAM_2);
+    channel.log(outputLevel, MESSAGE_FORMAT_3, MESSAGE_PARAM_1, MESSAGE_PARAM_2, MESSAGE_PARAM_3);
+    channel.log(outputLevel, e, MESSAGE_FORMAT_1, MESSAGE_PARAM_1);
+    channel.log(outputLevel, MESSAGE_FORMAT_1, MESSAGE_PARAM_1, e);
+
+    assertThat(messages, contains(MESSAGE_FORMAT_1_RESULT, MESSAGE_FORMAT_2_RESULT, MESSAGE_FORMAT_3_RESULT,
+        MESSAGE_FORMAT_1_RESULT, MESSAGE_FORMAT_1_RESULT));
+    assertThat(throwables, equalTo(Arrays.<Throwable>asList(null, null, null, e, e)));
+  }
+
+  private int locationAwareLevelFor(LDLogLevel level) {
+    switch (level) {
+    case DEBUG:
+      return LocationAwareLogger.DEBUG_INT;
+    case INFO:
+      return LocationAwareLogger.INFO_INT;
+    case WARN:
+      return LocationAwareLogger.WARN_INT;
+    default:
+      return LocationAwareLogger.ERROR_INT;
+    }
+  }
+
   private Level slf4jLevelFor(LDLogLevel level) {
     switch (outputLevel) {
     case DEBUG:
@@ -0,0 +1,156 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@SuppressWarnings("javadoc")
+public class LengthLimiterTest extends BaseTest {
+  private final LogCapture sink = Logs.capture();
+
+  private LDLogger logger(int maxParameterLength, int maxMessageLength) {
+    return LDLogger.withAdapter(Logs.limitLength(sink, maxParameterLength, maxMessageLength), "logname");
+  }
+
+  @Test
+  public void shortMessagesAreUnchanged() {
+    LDLogger logger = logger(100, 1000);
+    for (LDLogLevel level: LDLogLevel.values()) {
+      if (level != LDLogLevel.NONE) {
+        writeTestMessages(logger, level);
+      }
+    }
+    LogCapture expected = Logs.capture();
+    LDLogger unlimited = LDLogger.withAdapter(expected, "logname");
+    for (LDLogLevel level: LDLogLevel.values()) {
+      if (level != LDLogLevel.NONE) {
+        writeTestMessages(unlimited, level);
+      }
+    }
+    assertThat(sink.getMessageStrings(), equalTo(expected.getMessageStrings()));
+  }
+
+  @Test
+  public void longParametersAreTruncated() {
+    LDLogger logger = logger(5, 1000);
+    logger.info("a{}b", "0123456789");
+    logger.info("a{}b{}c", "0123456789", "xy");
+    logger.info("a{}b{}c{}d", "0123456789", "xy", "abcdefgh");
+    assertThat(sink.getMessageStrings(), contains(
+        "INFO:a01...b", "INFO:a01...bxyc", "INFO:a01...bxycab...d"));
+  }
+
+  @Test
+  public void longMessagesAreTruncated() {
+    LDLogger logger = logger(100, 10);
+    logger.info("{}", "0123456789");
+    logger.info("{}", "0123456789a");
+    logger.info("abcdefghijklmnop");
+    logger.info("abc{}defghijklmnop", "x");
+    logger.info("a{}b{}c{}", "0123", "4567", "89ab");
+    assertThat(sink.getMessageStrings(), contains(
+        "INFO:0123456789", "INFO:0123456...", "INFO:abcdefg...", "INFO:abcxdef...", "INFO:a0123b4..."));
+  }
+
+  @Test
+  public void escapedPlaceholdersAndExtraParametersFollowSimpleFormat() {
+    LDLogger logger = logger(100, 1000);
+    logger.info("not here \\{} but here{} and not {}", "!");
+    logger.info("{} is all", "a", "b", "c");
+    logger.info("a{}b", (Object)null);
+    assertThat(sink.getMessageStrings(), contains(
+        "INFO:not here {} but here! and not {}", "INFO:a is all", "INFO:ab"));
+  }
+
+  @Test
+  public void messageObjectIsLimitedToMessageLength() {
+    LDLogger logger = logger(2, 10);
+    logger.info("0123456789abc");
+    logger.info(Arrays.asList(1, 2, 3));
+    logger.info((Object)null);
+    assertThat(sink.getMessageStrings(), contains("INFO:0123456...", "INFO:[1, 2, 3]", "INFO:"));
+  }
+
+  @Test
+  public void arraysAreRenderedByContents() {
+    LDLogger logger = logger(100, 1000);
+    logger.info("{}", (Object)new int[] { 1, 2 });
+    logger.info("{}", (Object)new Object[] { "a", new long[] { 3L }, null });
+    assertThat(sink.getMessageStrings(), contains("INFO:[1, 2]", "INFO:[a, [3], null]"));
+  }
+
+  @Test
+  public void largeCollectionIsOnlyIteratedUpToLimit() {
+    final AtomicInteger visited = new AtomicInteger();
+    List<Integer> huge = new AbstractList<Integer>() {
+      @Override
+      public Integer get(int index) {
+        visited.incrementAndGet();
+        return index;
+      }
+
+      @Override
+      public int size() {
+        return 1000000;
+      }
+    };
+    logger(20, 1000).info("{}", huge);
+    assertThat(sink.getMessageStrings(), contains("INFO:[0, 1, 2, 3, 4, 5..."));
+    assertThat(visited.get(), lessThanOrEqualTo(10));
+  }
+
+  @Test
+  public void mapsAreRenderedLikeToString() {
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("a", 1);
+    m.put("b", Arrays.asList("x", "y"));
+    logger(100, 1000).info("{}", m);
+    assertThat(sink.getMessageStrings(), contains("INFO:" + m.toString()));
+  }
+
+  @Test
+  public void parameterIsNotRenderedIfLevelIsDisabled() {
+    final AtomicInteger calls = new AtomicInteger();
+    Object param = new Object() {
+      @Override
+      public String toString() {
+        calls.incrementAndGet();
+        return "x";
+      }
+    };
+    LDLogger logger = LDLogger.withAdapter(Logs.limitLength(Logs.level(sink, LDLogLevel.INFO), 10, 10), "");
+    logger.debug("{}", param);
+    logger.debug("{}{}", param, param);
+    logger.debug("{}{}{}", param, param, param);
+    logger.debug(param);
+    logger.debug(new Exception(), "{}", param);
+    assertThat(calls.get(), is(0));
+    assertThat(sink.getMessages().size(), is(0));
+  }
+
+  @Test
+  public void throwableIsPassedThroughWithLimitedMessage() {
+    ThrowableCapture capture = new ThrowableCapture();
+    Exception e = new Exception("oops");
+    LDLogger.withAdapter(Logs.limitLength(capture, 3, 100), "").error(e, "a{}", "bcdef");
+    assertThat(capture.calls, contains("ERROR:a...|" + e));
+  }
+
+  @Test
+  public void negativeLimitsAreTreatedAsZero() {
+    logger(-1, -1).info("abc");
+    assertThat(sink.getMessageStrings(), contains("INFO:"));
+  }
+}
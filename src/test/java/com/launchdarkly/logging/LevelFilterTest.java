@@ -10,7 +10,10 @@ import java.util.Collection;
 import java.util.List;
 
 import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static com.launchdarkly.logging.TestHelpers.writeThrowableMessage;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.sameInstance;
 
@@ -56,6 +59,19 @@ public class LevelFilterTest {
         is(outputLevel.compareTo(enableLevel) >= 0));
   }
   
+  @Test
+  public void testThrowableIsForwardedIfEnabled() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(Logs.level(sink, enableLevel), "logname");
+    Exception e = new Exception("boom");
+    writeThrowableMessage(logger, outputLevel, e, "a{}", "b");
+    if (outputLevel.compareTo(enableLevel) >= 0) {
+      assertThat(sink.calls, contains(outputLevel + ":ab|java.lang.Exception: boom"));
+    } else {
+      assertThat(sink.calls, empty());
+    }
+  }
+
   @Test
   public void testNullLevelIsSameAsDebug() {
     LogCapture sink = Logs.capture();
@@ -0,0 +1,266 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.launchdarkly.logging.LevelGovernor.CALM_WINDOWS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+@SuppressWarnings("javadoc")
+public class LevelGovernorTest extends BaseTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long NO_AUTOMATIC_WINDOWS = Long.MAX_VALUE;
+
+  private final LogCapture sink = Logs.capture();
+
+  private LevelGovernor governor(LDLogLevel level, double maxPerSecond, long maxWriteMicros) {
+    return new LevelGovernor(sink, level, maxPerSecond, maxWriteMicros, NO_AUTOMATIC_WINDOWS);
+  }
+
+  private List<String> statusMessages() {
+    List<String> ret = new ArrayList<>();
+    for (LogCapture.Message m: sink.getMessages()) {
+      if (m.getLoggerName().equals(LevelGovernor.LOGGER_NAME)) {
+        ret.add(m.getLevel() + ":" + m.getText());
+      }
+    }
+    return ret;
+  }
+
+  private static void logMany(LDLogger logger, LDLogLevel level, int count) {
+    for (int i = 0; i < count; i++) {
+      switch (level) {
+      case DEBUG:
+        logger.debug("m");
+        break;
+      case INFO:
+        logger.info("m");
+        break;
+      default:
+        logger.warn("m");
+        break;
+      }
+    }
+  }
+
+  @Test
+  public void actsAsLevelFilterUnderNormalLoad() {
+    LevelGovernor governor = governor(LDLogLevel.INFO, 1000, 1000000);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logger.debug("a");
+    logger.info("b");
+    logger.info("{}", "c");
+    logger.info("{}{}", "d", "e");
+    logger.info("{}{}{}", "f", "g", "h");
+    logger.warn(new Exception("x"), "i");
+    governor.endWindow(SECOND);
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+    assertThat(sink.getMessageStrings().subList(0, 4), contains("INFO:b", "INFO:c", "INFO:de", "INFO:fgh"));
+    assertThat(sink.getMessageStrings().get(4), startsWith("WARN:i"));
+    assertThat(sink.getMessages().size(), is(5));
+  }
+
+  @Test
+  public void levelIsRaisedStepByStepWhenRateIsTooHigh() {
+    LevelGovernor governor = governor(LDLogLevel.DEBUG, 10, 1000000);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logMany(logger, LDLogLevel.DEBUG, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+
+    // DEBUG messages are still counted but not written, so they do not keep the level raised
+    // unless there are also too many INFO messages
+    int before = sink.getMessages().size();
+    logMany(logger, LDLogLevel.DEBUG, 5);
+    logMany(logger, LDLogLevel.INFO, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.WARN));
+    assertThat(sink.getMessages().size() - before, is(21));
+
+    // the level is never raised above WARN
+    logMany(logger, LDLogLevel.WARN, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.WARN));
+  }
+
+  @Test
+  public void levelChangesAreLogged() {
+    LevelGovernor governor = governor(LDLogLevel.DEBUG, 10, 1000000);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logMany(logger, LDLogLevel.DEBUG, 20);
+    governor.endWindow(SECOND);
+    for (int i = 0; i < CALM_WINDOWS; i++) {
+      governor.endWindow(SECOND);
+    }
+    assertThat(statusMessages(), contains(
+        allOf(startsWith("WARN:Log output is too heavy (20 messages per second, average write time "),
+            endsWith(" microseconds); raising log level from DEBUG to INFO")),
+        equalTo("INFO:Log output has decreased; lowering log level from INFO to DEBUG")));
+  }
+
+  @Test
+  public void levelIsRaisedWhenWritesAreTooSlow() {
+    LDLogAdapter slowSink = new LDLogAdapter() {
+      @Override
+      public Channel newChannel(String name) {
+        final Channel channel = sink.newChannel(name);
+        return new Channel() {
+          @Override
+          public boolean isEnabled(LDLogLevel level) {
+            return true;
+          }
+
+          @Override
+          public void log(LDLogLevel level, Object message) {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < TimeUnit.MICROSECONDS.toNanos(100)) {}
+            channel.log(level, message);
+          }
+
+          @Override
+          public void log(LDLogLevel level, String format, Object param) {}
+
+          @Override
+          public void log(LDLogLevel level, String format, Object param1, Object param2) {}
+
+          @Override
+          public void log(LDLogLevel level, String format, Object... params) {}
+        };
+      }
+    };
+    LevelGovernor governor = new LevelGovernor(slowSink, LDLogLevel.DEBUG, 1000000, 10, NO_AUTOMATIC_WINDOWS);
+    logMany(LDLogger.withAdapter(governor, "logname"), LDLogLevel.DEBUG, 3);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+  }
+
+  @Test
+  public void levelIsLoweredOnlyAfterSeveralCalmWindows() {
+    LevelGovernor governor = governor(LDLogLevel.DEBUG, 10, 1000000);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logMany(logger, LDLogLevel.INFO, 20);
+    governor.endWindow(SECOND);
+    logMany(logger, LDLogLevel.INFO, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.WARN));
+
+    for (int i = 0; i < CALM_WINDOWS - 1; i++) {
+      governor.endWindow(SECOND);
+      assertThat(governor.getEffectiveLevel(), is(LDLogLevel.WARN));
+    }
+    // a window that is not calm enough starts the count over; 6 INFO messages per second is
+    // below the limit but not below half of it
+    logMany(logger, LDLogLevel.INFO, 6);
+    governor.endWindow(SECOND);
+    for (int i = 0; i < CALM_WINDOWS - 1; i++) {
+      governor.endWindow(SECOND);
+      assertThat(governor.getEffectiveLevel(), is(LDLogLevel.WARN));
+    }
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+    for (int i = 0; i < CALM_WINDOWS; i++) {
+      governor.endWindow(SECOND);
+    }
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.DEBUG));
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(true));
+
+    // never lowered below the configured level
+    for (int i = 0; i < CALM_WINDOWS; i++) {
+      governor.endWindow(SECOND);
+    }
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.DEBUG));
+  }
+
+  @Test
+  public void levelStaysRaisedWhileCallersCheckIsEnabledFirst() {
+    LevelGovernor governor = governor(LDLogLevel.DEBUG, 10, 1000000);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logMany(logger, LDLogLevel.DEBUG, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+
+    for (int i = 0; i < CALM_WINDOWS * 2; i++) {
+      for (int j = 0; j < 20; j++) {
+        if (logger.isEnabled(LDLogLevel.DEBUG)) {
+          logger.debug("m");
+        }
+      }
+      governor.endWindow(SECOND);
+    }
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+  }
+
+  @Test
+  public void levelStaysRaisedWithDecoratorAboveGovernor() {
+    LevelGovernor governor = governor(LDLogLevel.DEBUG, 10, 1000000);
+    LDLogger logger = LDLogger.withAdapter(Logs.level(governor, LDLogLevel.DEBUG), "logname");
+    logMany(logger, LDLogLevel.DEBUG, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+
+    for (int i = 0; i < CALM_WINDOWS * 2; i++) {
+      logMany(logger, LDLogLevel.DEBUG, 20);
+      governor.endWindow(SECOND);
+    }
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+
+    // once the load really has decreased, the level is lowered
+    for (int i = 0; i < CALM_WINDOWS; i++) {
+      logMany(logger, LDLogLevel.DEBUG, 2);
+      governor.endWindow(SECOND);
+    }
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.DEBUG));
+  }
+
+  @Test
+  public void messagesThatWouldNotBeWrittenAnywayAreNotCounted() {
+    LevelGovernor governor = new LevelGovernor(Logs.level(sink, LDLogLevel.INFO), LDLogLevel.DEBUG, 10, 1000000,
+        NO_AUTOMATIC_WINDOWS);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    logMany(logger, LDLogLevel.DEBUG, 20);
+    governor.endWindow(SECOND);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.DEBUG));
+
+    LevelGovernor governor2 = governor(LDLogLevel.WARN, 10, 1000000);
+    logMany(LDLogger.withAdapter(governor2, "logname"), LDLogLevel.INFO, 20);
+    governor2.endWindow(SECOND);
+    assertThat(governor2.getEffectiveLevel(), is(LDLogLevel.WARN));
+    assertThat(sink.getMessageStrings(), empty());
+  }
+
+  @Test
+  public void windowEndsAutomaticallyWhenMessagesAreLogged() throws Exception {
+    LevelGovernor governor = new LevelGovernor(sink, LDLogLevel.DEBUG, 1, 1000000, 1);
+    LDLogger logger = LDLogger.withAdapter(governor, "logname");
+    Thread.sleep(1);
+    logMany(logger, LDLogLevel.DEBUG, 3);
+    assertThat(governor.getEffectiveLevel(), is(LDLogLevel.INFO));
+
+    // messages below the current level also end the window
+    Thread.sleep(1);
+    logger.debug("a");
+    governor.checkWindow(System.nanoTime() + SECOND);
+    assertThat(statusMessages().size(), is(1));
+  }
+
+  @Test
+  public void governedAdapterUsesOneSecondWindows() {
+    LDLogAdapter adapter = Logs.governed(sink, null, 10, 100);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    logger.debug("a");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a"));
+  }
+}
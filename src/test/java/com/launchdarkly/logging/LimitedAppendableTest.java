@@ -0,0 +1,95 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class LimitedAppendableTest {
+  @Test
+  public void textWithinLimitIsUnchanged() {
+    LimitedAppendable a = new LimitedAppendable(5);
+    a.append("ab").append('c').append("xdey", 1, 3);
+    assertThat(a.toString(), equalTo("abcde"));
+    assertThat(a.isTruncated(), is(false));
+    assertThat(a.remaining(), is(0));
+  }
+
+  @Test
+  public void textBeyondLimitIsTruncatedWithMarker() {
+    LimitedAppendable a = new LimitedAppendable(5);
+    a.append("abcdef").append("more");
+    assertThat(a.toString(), equalTo("ab..."));
+    assertThat(a.isTruncated(), is(true));
+    assertThat(a.remaining(), is(0));
+  }
+
+  @Test
+  public void charBeyondLimitTruncates() {
+    LimitedAppendable a = new LimitedAppendable(4);
+    a.append("abcd").append('e').append('f');
+    assertThat(a.toString(), equalTo("a..."));
+  }
+
+  @Test
+  public void markerIsShortenedForVerySmallLimit() {
+    assertThat(new LimitedAppendable(2).append("abc").toString(), equalTo(".."));
+    assertThat(new LimitedAppendable(0).append('a').toString(), equalTo(""));
+  }
+
+  @Test
+  public void nullIsAppendedAsText() {
+    LimitedAppendable a = new LimitedAppendable(20);
+    a.append(null).append(null, 1, 3).appendValue(null);
+    assertThat(a.toString(), equalTo("nullulnull"));
+  }
+
+  @Test
+  public void collectionContainingItself() {
+    List<Object> list = new ArrayList<>();
+    list.add("a");
+    list.add(list);
+    assertThat(new LimitedAppendable(100).appendValue(list).toString(), equalTo(list.toString()));
+  }
+
+  @Test
+  public void mapContainingItself() {
+    Map<Object, Object> map = new HashMap<>();
+    map.put(map, map);
+    assertThat(new LimitedAppendable(100).appendValue(map).toString(), equalTo("{(this Map)=(this Map)}"));
+  }
+
+  @Test
+  public void arrayContainingItself() {
+    Object[] array = new Object[2];
+    array[0] = "a";
+    array[1] = array;
+    assertThat(new LimitedAppendable(100).appendValue(array).toString(), equalTo("[a, [...]]"));
+  }
+
+  @Test
+  public void deeplyNestedContainersAreCutOff() {
+    List<Object> a = new ArrayList<>(), b = new ArrayList<>();
+    Map<Object, Object> m = new HashMap<>();
+    a.add(b);
+    b.add(new Object[] { m });
+    m.put("k", a);
+    assertThat(new LimitedAppendable(1000).appendValue(a).toString(),
+        equalTo("[[[{k=[[[{k=...}]]]}]]]"));
+  }
+
+  @Test
+  public void deeplyNestedArraysAreCutOff() {
+    Object[] a = new Object[1];
+    Object[] b = new Object[] { a };
+    a[0] = b;
+    assertThat(new LimitedAppendable(1000).appendValue(a).toString(), equalTo("[[[[[[[[...]]]]]]]]"));
+  }
+}
@@ -0,0 +1,156 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class LogHotspotsTest extends BaseTest {
+  private final LogCapture sink = Logs.capture();
+
+  private static String formats(List<LogHotspots.Statement> statements) {
+    StringBuilder sb = new StringBuilder();
+    for (LogHotspots.Statement s: statements) {
+      sb.append(sb.length() == 0 ? "" : ",").append(s.getFormat());
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void outputIsForwardedAsFormattedText() {
+    LDLogger logger = LDLogger.withAdapter(Logs.withHotspots(sink, 10), "logname");
+    logger.info("a");
+    logger.info("b{}", 1);
+    logger.info("c{}{}", 1, 2);
+    logger.info("d{}{}{}", 1, 2, 3);
+    logger.info(new Exception("x"), "e{}", 1);
+    assertThat(sink.getMessageStrings().subList(0, 4), contains("INFO:a", "INFO:b1", "INFO:c12", "INFO:d123"));
+    assertThat(sink.getMessageStrings().get(4).startsWith("INFO:e1" + System.lineSeparator() + "java.lang.Exception: x"),
+        is(true));
+  }
+
+  @Test
+  public void throwableIsForwardedWithFormattedTextAsParameter() {
+    ThrowableCapture throwableSink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(Logs.withHotspots(throwableSink, 10), "logname");
+    logger.warn(new Exception("boom"), "a{}", "{}");
+    assertThat(throwableSink.calls, contains("WARN:a{}|java.lang.Exception: boom"));
+    assertThat(throwableSink.throwableFormats, contains("{}"));
+  }
+
+  @Test
+  public void statementsAreCountedByFormatString() {
+    LogHotspots hotspots = Logs.withHotspots(sink, 10);
+    LDLogger logger = LDLogger.withAdapter(hotspots, "logname");
+    for (int i = 0; i < 5; i++) {
+      logger.info("Received {} flags", 100 + i);
+    }
+    logger.warn("short");
+    logger.warn(new StringBuilder("object message"));
+    logger.error(new Exception(), "failed {} {} {}", "a", "b", "c");
+
+    assertThat(hotspots.getTotalCount(), is(8L));
+    assertThat(hotspots.getTotalLength(), is(5L * 18 + 5 + 14 + 12));
+    assertThat(formats(hotspots.getTopByCount()), is("Received {} flags,failed {} {} {},short,{}"));
+    assertThat(formats(hotspots.getTopByLength()), is("Received {} flags,{},failed {} {} {},short"));
+    LogHotspots.Statement top = hotspots.getTopByLength().get(0);
+    assertThat(top.getCount(), is(5L));
+    assertThat(top.getLength(), is(90L));
+    assertThat(top.toString(), is("(Received {} flags, count=5, length=90)"));
+  }
+
+  @Test
+  public void disabledLevelsAreNotCounted() {
+    LogHotspots hotspots = Logs.withHotspots(Logs.level(sink, LDLogLevel.INFO), 10);
+    LDLogger logger = LDLogger.withAdapter(hotspots, "logname");
+    logger.debug("a");
+    logger.debug("a{}", 1);
+    logger.debug("a{}{}", 1, 2);
+    logger.debug("a{}{}{}", 1, 2, 3);
+    logger.debug(new Exception(), "a");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(hotspots.getTotalCount(), is(0L));
+    assertThat(hotspots.getTopByCount(), empty());
+  }
+
+  @Test
+  public void onlyTopStatementsAreKept() {
+    LogHotspots hotspots = Logs.withHotspots(sink, 2);
+    LDLogger logger = LDLogger.withAdapter(hotspots, "logname");
+    for (int i = 0; i < 3; i++) {
+      logger.info("a");
+    }
+    logger.info("b");
+    logger.info("c");
+    logger.info("b");
+    for (int i = 0; i < 4; i++) {
+      logger.info("d");
+    }
+    logger.info("c");
+    assertThat(formats(hotspots.getTopByCount()), is("d,a"));
+  }
+
+  @Test
+  public void mostFrequentStatementsAreFoundAmongManyDistinctOnes() {
+    LogHotspots hotspots = Logs.withHotspots(sink, 3);
+    LDLogger logger = LDLogger.withAdapter(Logs.level(hotspots, LDLogLevel.DEBUG), "logname");
+    for (int i = 0; i < 5000; i++) {
+      logger.info("noise " + i);
+      if (i % 10 == 0) {
+        logger.info("frequent {}", i);
+      }
+      if (i % 20 == 0) {
+        logger.info("less frequent {}", i);
+      }
+    }
+    List<LogHotspots.Statement> top = hotspots.getTopByCount();
+    assertThat(top.get(0).getFormat(), is("frequent {}"));
+    assertThat(top.get(1).getFormat(), is("less frequent {}"));
+    assertThat(top.get(0).getCount() >= 500, is(true));
+  }
+
+  @Test
+  public void reportShowsShareOfLength() {
+    LogHotspots hotspots = Logs.withHotspots(sink, 10);
+    LDLogger logger = LDLogger.withAdapter(hotspots, "logname");
+    logger.info("xxx");
+    logger.info("y");
+    String nl = System.lineSeparator();
+    assertThat(hotspots.getReport(), is("Log hotspots: 2 messages, 4 characters" + nl +
+        " 75.0% of characters (3 characters, 1 messages): xxx" + nl +
+        " 25.0% of characters (1 characters, 1 messages): y"));
+  }
+
+  @Test
+  public void reportIsWrittenOnlyIfSomethingWasLogged() {
+    LogHotspots hotspots = Logs.withHotspots(sink, 10);
+    LDLogAdapter.Channel reportChannel = sink.newChannel(LogHotspots.REPORT_LOGGER_NAME);
+    hotspots.writeReport(reportChannel);
+    assertThat(sink.getMessages(), empty());
+    LDLogger.withAdapter(hotspots, "logname").info("a");
+    hotspots.writeReport(reportChannel);
+    assertThat(sink.getMessages().size(), is(2));
+    assertThat(sink.getMessages().get(1).getLoggerName(), is(LogHotspots.REPORT_LOGGER_NAME));
+    assertThat(sink.getMessages().get(1).getText(), containsString("Log hotspots: 1 messages"));
+  }
+
+  @Test
+  public void periodicReportIsWrittenUntilClosed() throws Exception {
+    LogHotspots hotspots = Logs.withHotspots(sink, 10);
+    LDLogger.withAdapter(hotspots, "logname").info("a");
+    hotspots.reportPeriodically(100000).reportPeriodically(1);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (sink.getMessages().size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    hotspots.close();
+    hotspots.close();
+    assertThat(sink.getMessages().get(1).getLoggerName(), is(LogHotspots.REPORT_LOGGER_NAME));
+  }
+}
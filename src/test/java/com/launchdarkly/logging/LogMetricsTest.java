@@ -0,0 +1,233 @@
+package com.launchdarkly.logging;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("javadoc")
+public class LogMetricsTest extends BaseTest {
+  @Test
+  public void outputIsForwardedAfterFormatting() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.withMetrics(sink), "logname");
+    logger.debug(null);
+    logger.info("a");
+    logger.warn("b={}", "x");
+    logger.error("c={},{}", "x", 2);
+    logger.debug("d={},{},{}", "x", 2, true);
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:", "INFO:a", "WARN:b=x", "ERROR:c=x,2", "DEBUG:d=x,2,true"));
+  }
+
+  @Test
+  public void throwableIsForwardedWithFormattedMessage() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LogMetrics metrics = Logs.withMetrics(Logs.level(sink, LDLogLevel.INFO));
+    LDLogger logger = LDLogger.withAdapter(metrics, "logname");
+    logger.debug(new Exception("no"), "x");
+    logger.warn(new Exception("boom"), "a{}", "{}");
+    assertThat(sink.calls, contains("WARN:a{}|java.lang.Exception: boom"));
+    assertThat(sink.throwableFormats, contains("{}"));
+    assertThat(metrics.getSnapshot().getCount(LDLogLevel.WARN), equalTo(1L));
+    assertThat(metrics.getSnapshot().getTotalCount(), equalTo(1L));
+    assertThat(metrics.getSnapshot().getRenderedLength(), equalTo(3L));
+  }
+
+  @Test
+  public void countsMessagesPerLoggerAndLevel() {
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    LDLogger logger1 = LDLogger.withAdapter(metrics, "a");
+    LDLogger logger2 = logger1.subLogger("b");
+    logger1.debug("x");
+    logger1.debug("x");
+    logger1.warn("x");
+    logger2.debug("x");
+    logger2.error("x");
+
+    LogMetrics.Snapshot snapshot = metrics.getSnapshot();
+    assertThat(snapshot.getLoggerNames(), containsInAnyOrder("a", "a.b"));
+    assertThat(snapshot.getCount("a", LDLogLevel.DEBUG), equalTo(2L));
+    assertThat(snapshot.getCount("a", LDLogLevel.WARN), equalTo(1L));
+    assertThat(snapshot.getCount("a.b", LDLogLevel.ERROR), equalTo(1L));
+    assertThat(snapshot.getCount("nope", LDLogLevel.ERROR), equalTo(0L));
+    assertThat(snapshot.getCount(LDLogLevel.DEBUG), equalTo(3L));
+    assertThat(snapshot.getCount(LDLogLevel.INFO), equalTo(0L));
+    assertThat(snapshot.getTotalCount(), equalTo(5L));
+  }
+
+  @Test
+  public void disabledLevelsAreNotCounted() {
+    LogMetrics metrics = Logs.withMetrics(Logs.level(Logs.capture(), LDLogLevel.INFO));
+    LDLogger logger = LDLogger.withAdapter(metrics, "a");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    logger.debug("x");
+    logger.info("x");
+    assertThat(metrics.getSnapshot().getTotalCount(), equalTo(1L));
+  }
+
+  @Test
+  public void measuresRenderedLength() {
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    LDLogger logger = LDLogger.withAdapter(metrics, "a");
+    logger.info("abc");
+    logger.info("{}{}", "de", "f");
+    assertThat(metrics.getSnapshot().getRenderedLength(), equalTo(6L));
+  }
+
+  @Test
+  public void recordsLatency() {
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    assertThat(metrics.getSnapshot().getLatencyPercentileNanos(50), equalTo(0L));
+    LDLogger logger = LDLogger.withAdapter(metrics, "a");
+    for (int i = 0; i < 100; i++) {
+      logger.info("x");
+    }
+    LogMetrics.Snapshot snapshot = metrics.getSnapshot();
+    long total = 0;
+    for (long c: snapshot.getLatencyHistogram()) {
+      total += c;
+    }
+    assertThat(total, equalTo(100L));
+    assertThat(snapshot.getLatencyPercentileNanos(0), greaterThan(0L));
+    assertThat(snapshot.getLatencyPercentileNanos(99) >= snapshot.getLatencyPercentileNanos(50), is(true));
+  }
+
+  @Test
+  public void histogramBuckets() {
+    assertThat(LogMetrics.histogramBucket(0), equalTo(0));
+    assertThat(LogMetrics.histogramBucket(1), equalTo(0));
+    assertThat(LogMetrics.histogramBucket(2), equalTo(1));
+    assertThat(LogMetrics.histogramBucket(3), equalTo(1));
+    assertThat(LogMetrics.histogramBucket(1000), equalTo(9));
+    assertThat(LogMetrics.histogramBucket(Long.MAX_VALUE), equalTo(62));
+  }
+
+  @Test
+  public void countsAreAccurateWithConcurrentThreads() throws Exception {
+    final int threadCount = 8, perThread = 10000;
+    final LogMetrics metrics = Logs.withMetrics(Logs.toMethod(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {}
+    }));
+    final LDLogger logger = LDLogger.withAdapter(metrics, "a");
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    for (int t = 0; t < threadCount; t++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            logger.info("x");
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+    done.await();
+    assertThat(metrics.getSnapshot().getCount(LDLogLevel.INFO), equalTo((long)(threadCount * perThread)));
+  }
+
+  @Test
+  public void mbean() throws Exception {
+    Assume.assumeTrue(hasManagementApi());
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    LDLogger logger = LDLogger.withAdapter(metrics, "a");
+    logger.warn("hello");
+    String name = "com.launchdarkly.logging:type=LogMetricsTest";
+    metrics.registerMBean(name);
+    try {
+      assertThat(getMBeanAttribute(name, "WarnCount"), equalTo((Object)1L));
+      assertThat(getMBeanAttribute(name, "DebugCount"), equalTo((Object)0L));
+      assertThat(getMBeanAttribute(name, "Count.a.WARN"), equalTo((Object)1L));
+      assertThat(getMBeanAttribute(name, "RenderedLength"), equalTo((Object)5L));
+      assertThat(getMBeanAttributeCount(name), equalTo(4 + 1 + 3 + 4));
+    } finally {
+      metrics.unregisterMBean();
+    }
+    assertThat(isMBeanRegistered(name), is(false));
+    metrics.unregisterMBean(); // no-op the second time
+  }
+
+  @Test
+  public void unregisterMBeanAfterItWasRemovedElsewhere() throws Exception {
+    Assume.assumeTrue(hasManagementApi());
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    String name = "com.launchdarkly.logging:type=LogMetricsTest2";
+    metrics.registerMBean(name);
+    callMBeanServer("unregisterMBean", name);
+    assertThat(isMBeanRegistered(name), is(false));
+    metrics.unregisterMBean();
+  }
+
+  @Test
+  public void mbeanOperationsAreReportedAsNotFound() throws Exception {
+    Assume.assumeTrue(hasManagementApi());
+    LogMetrics metrics = Logs.withMetrics(Logs.capture());
+    String name = "com.launchdarkly.logging:type=LogMetricsTest3";
+    metrics.registerMBean(name);
+    try {
+      callMBeanServer("invoke", name, "reset", new Object[0], new String[0]);
+      fail("expected exception");
+    } catch (InvocationTargetException e) {
+      assertThat(e.getCause().getClass().getName(), equalTo("javax.management.ReflectionException"));
+      assertThat(e.getCause().getCause(), instanceOf(NoSuchMethodException.class));
+      assertThat(e.getCause().getCause().getMessage(), equalTo("reset"));
+    } finally {
+      metrics.unregisterMBean();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void mbeanWithInvalidNameThrowsException() {
+    Assume.assumeTrue(hasManagementApi());
+    Logs.withMetrics(Logs.capture()).registerMBean("not a valid name");
+  }
+
+  private static boolean hasManagementApi() {
+    try {
+      Class.forName("java.lang.management.ManagementFactory");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  // The JMX API is accessed by reflection, because test code must also compile in Android.
+  private static Object callMBeanServer(String method, String objectName, Object... args) throws Exception {
+    Object server = Class.forName("java.lang.management.ManagementFactory")
+        .getMethod("getPlatformMBeanServer").invoke(null);
+    Class<?> objectNameClass = Class.forName("javax.management.ObjectName");
+    Class<?>[] paramTypes = new Class<?>[args.length + 1];
+    Object[] allArgs = new Object[args.length + 1];
+    paramTypes[0] = objectNameClass;
+    allArgs[0] = objectNameClass.getConstructor(String.class).newInstance(objectName);
+    for (int i = 0; i < args.length; i++) {
+      paramTypes[i + 1] = args[i].getClass();
+      allArgs[i + 1] = args[i];
+    }
+    return Class.forName("javax.management.MBeanServer").getMethod(method, paramTypes).invoke(server, allArgs);
+  }
+
+  private static Object getMBeanAttribute(String objectName, String attribute) throws Exception {
+    return callMBeanServer("getAttribute", objectName, attribute);
+  }
+
+  private static int getMBeanAttributeCount(String objectName) throws Exception {
+    Object info = callMBeanServer("getMBeanInfo", objectName);
+    return ((Object[])info.getClass().getMethod("getAttributes").invoke(info)).length;
+  }
+
+  private static boolean isMBeanRegistered(String objectName) throws Exception {
+    return (Boolean)callMBeanServer("isRegistered", objectName);
+  }
+}
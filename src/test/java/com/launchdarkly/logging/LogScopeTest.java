@@ -0,0 +1,140 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class LogScopeTest extends BaseTest {
+  @Test
+  public void outputIsDiscardedIfScopeDoesNotFail() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    try (LogScope scope = logger.beginScope()) {
+      scope.getLogger().debug("a");
+      scope.getLogger().info("b={}", "x");
+      assertThat(scope.isFailed(), is(false));
+    }
+    assertThat(sink.getMessages(), hasSize(0));
+  }
+
+  @Test
+  public void warningWritesKeptOutputAndPassesThroughAfterward() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    try (LogScope scope = logger.beginScope()) {
+      LDLogger scoped = scope.getLogger();
+      scoped.debug("a");
+      scoped.debug("b={}", "x");
+      scoped.info("c={},{}", "x", null);
+      scoped.debug("d={},{},{}", "x", 2, true);
+      assertThat(sink.getMessages(), hasSize(0));
+      scoped.warn("w");
+      assertThat(scope.isFailed(), is(true));
+      scoped.debug("e");
+    }
+    assertThat(sink.getMessageStrings(), contains(
+        "DEBUG:a", "DEBUG:b=x", "INFO:c=x,", "DEBUG:d=x,2,true", "WARN:w", "DEBUG:e"));
+  }
+
+  @Test
+  public void failWritesKeptOutput() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    LogScope scope = logger.beginScope();
+    scope.getLogger().debug("a");
+    scope.fail();
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a"));
+    scope.getLogger().debug("b");
+    scope.close();
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a", "DEBUG:b"));
+  }
+
+  @Test
+  public void subLoggersBelongToTheSameScope() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    try (LogScope scope = logger.beginScope()) {
+      scope.getLogger().debug("a");
+      scope.getLogger().subLogger("sub").debug("b");
+      scope.getLogger().subLogger("sub").error("c");
+    }
+    assertThat(sink.getMessages(), hasSize(3));
+    assertThat(sink.getMessages().get(0).getLoggerName(), equalTo("logname"));
+    assertThat(sink.getMessages().get(1).getLoggerName(), equalTo("logname.sub"));
+    assertThat(sink.getMessages().get(2).getLoggerName(), equalTo("logname.sub"));
+  }
+
+  @Test
+  public void oldestMessagesAreDroppedWhenLimitIsExceeded() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    try (LogScope scope = logger.beginScope(2)) {
+      scope.getLogger().debug("a");
+      scope.getLogger().debug("b");
+      scope.getLogger().debug("c");
+      scope.fail();
+    }
+    assertThat(sink.getMessageStrings(), contains("DEBUG:b", "DEBUG:c"));
+  }
+
+  @Test
+  public void outputAfterCloseIsWrittenImmediately() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    LogScope scope = logger.beginScope();
+    scope.close();
+    scope.getLogger().debug("a");
+    assertThat(sink.getMessageStrings(), contains("DEBUG:a"));
+  }
+
+  @Test
+  public void disabledLevelsAreNotKept() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.level(sink, LDLogLevel.INFO), "logname");
+    try (LogScope scope = logger.beginScope()) {
+      assertThat(scope.getLogger().isEnabled(LDLogLevel.DEBUG), is(false));
+      assertThat(scope.getLogger().isEnabled(LDLogLevel.INFO), is(true));
+      scope.getLogger().debug("a");
+      scope.getLogger().info("b");
+      scope.fail();
+    }
+    assertThat(sink.getMessageStrings(), contains("INFO:b"));
+  }
+
+  @Test
+  public void parametersAreNotConvertedToStringsIfDiscarded() {
+    LogCapture sink = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    Object param = new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("should not have been called");
+      }
+    };
+    try (LogScope scope = logger.beginScope()) {
+      scope.getLogger().debug("{}", param);
+    }
+    assertThat(sink.getMessages(), hasSize(0));
+  }
+
+  @Test
+  public void throwableIsKeptAndPassedToAdapter() {
+    ThrowableCapture sink = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(sink, "logname");
+    Exception e1 = new Exception("e1"), e2 = new Exception("e2");
+    try (LogScope scope = logger.beginScope()) {
+      scope.getLogger().debug(e1, "a={}", "x");
+      scope.getLogger().info((Throwable)null, "b");
+      assertThat(sink.calls, hasSize(0));
+      scope.getLogger().error(e2, "c");
+      scope.getLogger().debug(e1, "d");
+    }
+    assertThat(sink.calls, contains("DEBUG:a=x|java.lang.Exception: e1", "INFO:b|null",
+        "ERROR:c|java.lang.Exception: e2", "DEBUG:d|java.lang.Exception: e1"));
+  }
+}
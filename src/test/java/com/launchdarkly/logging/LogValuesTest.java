@@ -28,6 +28,96 @@ public class LogValuesTest {
     assertThat(calls.get(), equalTo(2));
   }
   
+  @Test
+  public void deferOnceCallsFunctionOnlyOnce() {
+    final AtomicInteger calls = new AtomicInteger(0);
+    Object thing = LogValues.deferOnce(new LogValues.StringProvider() {
+      @Override
+      public String get() {
+        return "calls=" + calls.incrementAndGet();
+      }
+    });
+    assertThat(calls.get(), equalTo(0));
+    assertThat(thing.toString(), equalTo("calls=1"));
+    assertThat(thing.toString(), equalTo("calls=1"));
+    assertThat(calls.get(), equalTo(1));
+  }
+
+  @Test
+  public void deferOnceRemembersNullValue() {
+    final AtomicInteger calls = new AtomicInteger(0);
+    Object thing = LogValues.deferOnce(new LogValues.StringProvider() {
+      @Override
+      public String get() {
+        calls.incrementAndGet();
+        return null;
+      }
+    });
+    assertThat(thing.toString(), nullValue());
+    assertThat(thing.toString(), nullValue());
+    assertThat(calls.get(), equalTo(1));
+  }
+
+  @Test
+  public void deferOnceIsNotCalledIfLevelIsDisabled() {
+    final AtomicInteger calls = new AtomicInteger(0);
+    LogCapture capture = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.level(capture, LDLogLevel.INFO), "");
+    logger.debug("{}", LogValues.deferOnce(new LogValues.StringProvider() {
+      @Override
+      public String get() {
+        return "calls=" + calls.incrementAndGet();
+      }
+    }));
+    assertThat(calls.get(), equalTo(0));
+    assertThat(capture.getMessages().size(), equalTo(0));
+  }
+
+  @Test
+  public void deferOnceIsCalledOnceForMultipleDestinations() {
+    final AtomicInteger calls = new AtomicInteger(0);
+    LogCapture capture1 = Logs.capture(), capture2 = Logs.capture();
+    LDLogger logger = LDLogger.withAdapter(Logs.toMultiple(capture1, capture2), "");
+    logger.info("{}", LogValues.deferOnce(new LogValues.StringProvider() {
+      @Override
+      public String get() {
+        return "calls=" + calls.incrementAndGet();
+      }
+    }));
+    assertThat(capture1.getMessages().get(0).getText(), equalTo("calls=1"));
+    assertThat(capture2.getMessages().get(0).getText(), equalTo("calls=1"));
+    assertThat(calls.get(), equalTo(1));
+  }
+
+  @Test
+  public void deferOnceIsCalledOnceFromConcurrentThreads() throws Exception {
+    final AtomicInteger calls = new AtomicInteger(0);
+    final Object thing = LogValues.deferOnce(new LogValues.StringProvider() {
+      @Override
+      public String get() {
+        calls.incrementAndGet();
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {}
+        return "x";
+      }
+    });
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          assertThat(thing.toString(), equalTo("x"));
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t: threads) {
+      t.join();
+    }
+    assertThat(calls.get(), equalTo(1));
+  }
+
   @Test
   public void exceptionSummary() {
     Exception e1 = new IllegalArgumentException();
@@ -50,4 +140,43 @@ public class LogValuesTest {
     
     assertThat(LogValues.exceptionTrace(null), nullValue());
   }
+
+  @Test
+  public void exceptionTraceWithFormat() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true);
+    Exception e = new IllegalArgumentException();
+    Object trace = LogValues.exceptionTrace(e, format);
+    String s = trace.toString();
+    assertThat(s, containsString("IllegalArgumentException [stack trace #1]"));
+    assertThat(s, containsString("at com.launchdarkly.logging.LogValuesTest.exceptionTraceWithFormat"));
+    assertThat(trace.toString(), sameInstance(s));
+
+    assertThat(LogValues.exceptionTrace(e, format).toString(),
+        equalTo("java.lang.IllegalArgumentException [same stack trace as #1]"));
+    assertThat(LogValues.exceptionTrace(null, format), nullValue());
+  }
+
+  @Test
+  public void messageWithTrace() {
+    Exception e = new IllegalArgumentException();
+    String trace = LogValues.exceptionTrace(e).toString();
+    String nl = System.lineSeparator();
+    assertThat(trace.endsWith(nl), equalTo(true));
+    assertThat(LogValues.messageWithTrace("a{}", new Object[] { "b" }, e).toString(),
+        equalTo("ab" + nl + trace.substring(0, trace.length() - nl.length())));
+  }
+
+  @Test
+  public void messageWithTraceWhenTraceHasNoFinalLineSeparator() {
+    Exception e = new IllegalArgumentException() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public void printStackTrace(java.io.PrintWriter w) {
+        w.print("trace");
+      }
+    };
+    assertThat(LogValues.messageWithTrace("a", new Object[0], e).toString(),
+        equalTo("a" + System.lineSeparator() + "trace"));
+  }
 }
@@ -5,7 +5,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static com.launchdarkly.logging.TestHelpers.writeThrowableMessage;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 
 @SuppressWarnings("javadoc")
@@ -30,6 +32,16 @@ public class MultiLogTest extends ParameterizedTestWithLevel {
     LogCaptureTest.verifyCapturedOutput(outputLevel, null, logName, sink2);
   }
   
+  @Test
+  public void testThrowableIsForwardedToAll() {
+    ThrowableCapture sink1 = new ThrowableCapture();
+    ThrowableCapture sink2 = new ThrowableCapture();
+    LDLogger logger = LDLogger.withAdapter(Logs.toMultiple(sink1, sink2), "logname");
+    writeThrowableMessage(logger, outputLevel, new Exception("boom"), "a{}", "b");
+    assertThat(sink1.calls, contains(outputLevel + ":ab|java.lang.Exception: boom"));
+    assertThat(sink2.calls, contains(outputLevel + ":ab|java.lang.Exception: boom"));
+  }
+
   @Test
   public void isEnabled() {
     String logName = "logname";
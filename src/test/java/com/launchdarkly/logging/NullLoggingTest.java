@@ -5,6 +5,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import static com.launchdarkly.logging.TestHelpers.writeTestMessages;
+import static com.launchdarkly.logging.TestHelpers.writeThrowableMessage;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -22,6 +23,7 @@ public class NullLoggingTest extends ParameterizedTestWithLevel {
     // just verifies that writing to the null logger doesn't throw an exception
     LDLogger logger = LDLogger.withAdapter(Logs.none(), "logname");
     writeTestMessages(logger, outputLevel);
+    writeThrowableMessage(logger, outputLevel, new Exception(), "a");
   }
   
   @Test
@@ -0,0 +1,145 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.launchdarkly.logging.RateLimiter.SUMMARY_INTERVAL_NANOS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@SuppressWarnings("javadoc")
+public class RateLimiterTest extends BaseTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final LogCapture sink = Logs.capture();
+
+  private static String suppressed(LDLogLevel level, long count) {
+    return level + ":" + SimpleFormat.format(RateLimiter.SUPPRESSED_MESSAGE_FORMAT, count);
+  }
+
+  @Test
+  public void burstIsAllowedAndFurtherMessagesAreSuppressed() {
+    LDLogAdapter adapter = Logs.rateLimited(sink, 0.001, 3);
+    LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    for (int i = 0; i < 5; i++) {
+      logger.warn("w{}", i);
+    }
+    assertThat(sink.getMessageStrings(), contains("WARN:w0", "WARN:w1", "WARN:w2"));
+
+    Logs.flush(adapter, 0);
+    assertThat(sink.getMessageStrings(), contains("WARN:w0", "WARN:w1", "WARN:w2",
+        suppressed(LDLogLevel.WARN, 2)));
+  }
+
+  @Test
+  public void allOverloadsAreLimited() {
+    LDLogger logger = LDLogger.withAdapter(Logs.rateLimited(sink, 0.001, 1), "logname");
+    logger.info("a");
+    logger.info("b");
+    logger.info("{}", "c");
+    logger.info("{}{}", "d", "e");
+    logger.info("{}{}{}", "f", "g", "h");
+    logger.info(new Exception(), "i");
+    assertThat(sink.getMessageStrings(), contains("INFO:a"));
+  }
+
+  @Test
+  public void levelsAndLoggerNamesHaveSeparateLimits() {
+    LDLogAdapter adapter = Logs.rateLimited(sink, 0.001, 1);
+    LDLogger logger1 = LDLogger.withAdapter(adapter, "a");
+    LDLogger logger2 = LDLogger.withAdapter(adapter, "b");
+    logger1.info("1");
+    logger1.warn("2");
+    logger2.info("3");
+    logger1.info("4");
+    assertThat(sink.getMessageStrings(), contains("INFO:1", "WARN:2", "INFO:3"));
+  }
+
+  @Test
+  public void loggersWithSameNameShareLimit() {
+    LDLogAdapter adapter = Logs.rateLimited(sink, 0.001, 1);
+    LDLogger.withAdapter(adapter, "a").info("1");
+    LDLogger.withAdapter(adapter, "a").info("2");
+    assertThat(sink.getMessageStrings(), contains("INFO:1"));
+  }
+
+  @Test
+  public void disabledLevelsDoNotUseTokens() {
+    LDLogAdapter adapter = Logs.rateLimited(Logs.level(sink, LDLogLevel.INFO), 0.001, 1);
+    LDLogger logger = LDLogger.withAdapter(adapter, "a");
+    logger.debug("1");
+    logger.debug("2");
+    logger.info("3");
+    assertThat(logger.isEnabled(LDLogLevel.DEBUG), is(false));
+    assertThat(logger.isEnabled(LDLogLevel.INFO), is(true));
+    assertThat(sink.getMessageStrings(), contains("INFO:3"));
+  }
+
+  @Test
+  public void tokensAreRefilledOverTime() {
+    RateLimiter.Bucket bucket = newBucket(2, 2, 0);
+    assertThat(bucket.tryAcquire(0), is(true));
+    assertThat(bucket.tryAcquire(0), is(true));
+    assertThat(bucket.tryAcquire(0), is(false));
+    assertThat(bucket.tryAcquire(SECOND / 2), is(true));
+    assertThat(bucket.tryAcquire(SECOND / 2), is(false));
+    assertThat(bucket.tryAcquire(SECOND * 10), is(true));
+    assertThat(bucket.tryAcquire(SECOND * 10), is(true));
+    assertThat(bucket.tryAcquire(SECOND * 10), is(false));
+  }
+
+  @Test
+  public void summaryIsWrittenBeforeNextAllowedMessage() {
+    RateLimiter.Bucket bucket = newBucket(1, 1, 0);
+    bucket.tryAcquire(0);
+    bucket.tryAcquire(0);
+    bucket.tryAcquire(0);
+    assertThat(sink.getMessageStrings(), empty());
+    assertThat(bucket.tryAcquire(SECOND), is(true));
+    assertThat(sink.getMessageStrings(), contains(suppressed(LDLogLevel.WARN, 2)));
+  }
+
+  @Test
+  public void summaryIsWrittenPeriodicallyWhileMessagesAreSuppressed() {
+    RateLimiter.Bucket bucket = newBucket(0.001, 1, 0);
+    bucket.tryAcquire(0);
+    bucket.tryAcquire(1);
+    bucket.tryAcquire(SUMMARY_INTERVAL_NANOS - 1);
+    assertThat(sink.getMessageStrings(), empty());
+    bucket.tryAcquire(SUMMARY_INTERVAL_NANOS);
+    assertThat(sink.getMessageStrings(), contains(suppressed(LDLogLevel.WARN, 3)));
+    bucket.tryAcquire(SUMMARY_INTERVAL_NANOS * 3 / 2);
+    bucket.tryAcquire(SUMMARY_INTERVAL_NANOS * 2);
+    assertThat(sink.getMessageStrings(), contains(suppressed(LDLogLevel.WARN, 3),
+        suppressed(LDLogLevel.WARN, 2)));
+  }
+
+  @Test
+  public void clockValuesCanWrapAround() {
+    RateLimiter.Bucket bucket = newBucket(1, 1, Long.MAX_VALUE);
+    assertThat(bucket.tryAcquire(Long.MAX_VALUE), is(true));
+    assertThat(bucket.tryAcquire(Long.MAX_VALUE + SECOND / 2), is(false));
+    assertThat(bucket.tryAcquire(Long.MAX_VALUE + SECOND), is(true));
+  }
+
+  @Test
+  public void outOfRangeParametersAreClamped() {
+    RateLimiter.Bucket bucket = newBucket(0, 0, 0);
+    assertThat(bucket.tryAcquire(0), is(true));
+    assertThat(bucket.tryAcquire(TimeUnit.MINUTES.toNanos(59)), is(false));
+    assertThat(bucket.tryAcquire(TimeUnit.HOURS.toNanos(1)), is(true));
+
+    RateLimiter.Bucket fast = newBucket(1e12, Integer.MAX_VALUE, 0);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(fast.tryAcquire(0), is(true));
+    }
+  }
+
+  private RateLimiter.Bucket newBucket(double messagesPerSecond, int burst, long now) {
+    RateLimiter limiter = new RateLimiter(sink, messagesPerSecond, burst);
+    return limiter.new Bucket(sink.newChannel("logname"), LDLogLevel.WARN, now);
+  }
+}
@@ -51,6 +51,60 @@ public class SimpleLoggingTest extends BaseTest {
     assertThat(LDLogger.withAdapter(filtered, "").isEnabled(LDLogLevel.INFO), is(true));
   }
   
+  @Test
+  public void testStreamWriterWritesBatch() {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    PrintStream ps = new PrintStream(bos);
+    Logs.StreamLineWriter w = new Logs.StreamLineWriter(ps);
+    w.writeLines(Arrays.asList("a", "b"));
+    w.writeLine("c");
+    String nl = System.lineSeparator();
+    assertEquals("a" + nl + "b" + nl + "c" + nl, bos.toString());
+  }
+
+  @Test
+  public void testStreamWriterFlushesButDoesNotCloseStream() {
+    final List<String> calls = new ArrayList<>();
+    PrintStream ps = new PrintStream(new ByteArrayOutputStream()) {
+      @Override
+      public void flush() {
+        calls.add("flush");
+      }
+
+      @Override
+      public void close() {
+        calls.add("close");
+      }
+    };
+    SimpleLogging adapter = Logs.toStream(ps);
+    assertThat(adapter.flush(0), is(true));
+    adapter.close();
+    assertThat(calls, contains("flush", "flush"));
+  }
+
+  @Test
+  public void testFlushAndCloseWithPlainLineWriter() {
+    SimpleLogging adapter = Logs.toMethod(new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {}
+    });
+    assertThat(adapter.flush(0), is(true));
+    adapter.close();
+  }
+
+  @Test
+  public void testDefaultWriteLinesCallsWriteLine() {
+    final List<String> lines = new ArrayList<>();
+    SimpleLogging.LineWriter w = new SimpleLogging.LineWriter() {
+      @Override
+      public void writeLine(String line) {
+        lines.add(line);
+      }
+    };
+    w.writeLines(Arrays.asList("a", "b"));
+    assertThat(lines, contains("a", "b"));
+  }
+
   @Test
   public void testTag() {
     ByteArrayOutputStream bos = new ByteArrayOutputStream();
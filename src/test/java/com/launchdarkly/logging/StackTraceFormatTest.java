@@ -0,0 +1,192 @@
+package com.launchdarkly.logging;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SuppressWarnings("javadoc")
+public class StackTraceFormatTest {
+  private static final String NL = System.lineSeparator();
+
+  @Test
+  public void defaultFormatMatchesPrintStackTrace() {
+    Exception e = exception("a", frames("x.A", "x.B", "x.C"));
+    assertThat(StackTraceFormat.defaults().render(e), equalTo(printStackTrace(e)));
+  }
+
+  @Test
+  public void defaultFormatMatchesPrintStackTraceForCauses() {
+    Exception cause = exception("cause", frames("y.A", "x.B", "x.C"));
+    Exception e = exception("a", frames("x.A", "x.B", "x.C"));
+    e.initCause(cause);
+    assertThat(StackTraceFormat.defaults().render(e), equalTo(printStackTrace(e)));
+    assertThat(StackTraceFormat.defaults().render(e), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "\tat x.B.m(B.java:1)" + NL +
+        "\tat x.C.m(C.java:1)" + NL +
+        "Caused by: java.lang.Exception: cause" + NL +
+        "\tat y.A.m(A.java:1)" + NL +
+        "\t... 2 more"));
+  }
+
+  @Test
+  public void maxDepthTruncatesFrames() {
+    Exception e = exception("a", frames("x.A", "x.B", "x.C", "x.D"));
+    assertThat(StackTraceFormat.defaults().maxDepth(2).render(e), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "\tat x.B.m(B.java:1)" + NL +
+        "\t... 2 frames truncated"));
+  }
+
+  @Test
+  public void maxDepthIsAtLeastOne() {
+    Exception e = exception("a", frames("x.A", "x.B"));
+    assertThat(StackTraceFormat.defaults().maxDepth(0).render(e), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "\t... 1 frame truncated"));
+  }
+
+  @Test
+  public void maxDepthAppliesToUniqueFramesOfCause() {
+    Exception cause = exception("cause", frames("y.A", "y.B", "x.C"));
+    Exception e = exception("a", frames("x.A", "x.C"));
+    e.initCause(cause);
+    assertThat(StackTraceFormat.defaults().maxDepth(1).render(e), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "\t... 1 frame truncated" + NL +
+        "Caused by: java.lang.Exception: cause" + NL +
+        "\tat y.A.m(A.java:1)" + NL +
+        "\t... 1 frame truncated" + NL +
+        "\t... 1 more"));
+  }
+
+  @Test
+  public void collapsedFramesAreReplacedByCount() {
+    Exception e = exception("a", frames("java.A", "x.B", "java.C", "sun.D", "x.E", "java.F"));
+    assertThat(StackTraceFormat.defaults().collapseFrames("java.", "sun.").render(e), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat java.A.m(A.java:1)" + NL +
+        "\tat x.B.m(B.java:1)" + NL +
+        "\t... 2 frames omitted" + NL +
+        "\tat x.E.m(E.java:1)" + NL +
+        "\t... 1 frame omitted"));
+  }
+
+  @Test
+  public void backReferencesReplaceRepeatedTraces() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true);
+    Exception cause1 = exception("cause1", frames("y.A", "x.B"));
+    Exception e1 = exception("a", frames("x.A", "x.B"));
+    e1.initCause(cause1);
+    Exception cause2 = exception("cause2", frames("y.A", "x.B"));
+    Exception e2 = exception("b", frames("x.A", "x.B"));
+    e2.initCause(cause2);
+    Exception other = exception("c", frames("x.C"));
+
+    assertThat(format.render(e1), equalTo(
+        "java.lang.Exception: a [stack trace #1]" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "\tat x.B.m(B.java:1)" + NL +
+        "Caused by: java.lang.Exception: cause1" + NL +
+        "\tat y.A.m(A.java:1)" + NL +
+        "\t... 1 more"));
+    assertThat(format.render(other), equalTo(
+        "java.lang.Exception: c [stack trace #2]" + NL +
+        "\tat x.C.m(C.java:1)"));
+    assertThat(format.render(e2), equalTo(
+        "java.lang.Exception: b [same stack trace as #1]" + NL +
+        "Caused by: java.lang.Exception: cause2"));
+  }
+
+  @Test
+  public void tracesWithDifferentExceptionClassesAreDistinct() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true);
+    StackTraceElement[] frames = frames("x.A");
+    Exception e1 = exception("a", frames);
+    Exception e2 = new IllegalStateException("a");
+    e2.setStackTrace(frames);
+    format.render(e1);
+    assertThat(format.render(e2), equalTo(
+        "java.lang.IllegalStateException: a [stack trace #2]" + NL +
+        "\tat x.A.m(A.java:1)"));
+  }
+
+  @Test
+  public void leastRecentlyUsedTraceIsEvicted() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true).cacheSize(2);
+    Exception e1 = exception("a", frames("x.A"));
+    Exception e2 = exception("b", frames("x.B"));
+    Exception e3 = exception("c", frames("x.C"));
+    format.render(e1);
+    format.render(e2);
+    format.render(e1);
+    format.render(e3); // evicts e2, which was used least recently
+    assertThat(format.render(e1), equalTo("java.lang.Exception: a [same stack trace as #1]"));
+    assertThat(format.render(e2), equalTo(
+        "java.lang.Exception: b [stack trace #4]" + NL +
+        "\tat x.B.m(B.java:1)"));
+  }
+
+  @Test
+  public void cacheSizeZeroDisablesCaching() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true).cacheSize(-1);
+    Exception e = exception("a", frames("x.A"));
+    format.render(e);
+    assertThat(format.render(e), equalTo(
+        "java.lang.Exception: a [stack trace #2]" + NL +
+        "\tat x.A.m(A.java:1)"));
+  }
+
+  @Test
+  public void configurationMethodsReturnInstanceWithEmptyCache() {
+    StackTraceFormat format = StackTraceFormat.defaults().backReferences(true);
+    Exception e = exception("a", frames("x.A"));
+    format.render(e);
+    assertThat(format.maxDepth(10).render(e), equalTo(
+        "java.lang.Exception: a [stack trace #1]" + NL +
+        "\tat x.A.m(A.java:1)"));
+  }
+
+  @Test
+  public void causeCycleIsRenderedOnce() {
+    Exception e1 = exception("a", frames("x.A"));
+    Exception e2 = exception("b", frames("x.B"));
+    e1.initCause(e2);
+    e2.initCause(e1);
+    assertThat(StackTraceFormat.defaults().render(e1), equalTo(
+        "java.lang.Exception: a" + NL +
+        "\tat x.A.m(A.java:1)" + NL +
+        "Caused by: java.lang.Exception: b" + NL +
+        "\tat x.B.m(B.java:1)"));
+  }
+
+  private static Exception exception(String message, StackTraceElement[] frames) {
+    Exception e = new Exception(message);
+    e.setStackTrace(frames);
+    return e;
+  }
+
+  private static StackTraceElement[] frames(String... classNames) {
+    StackTraceElement[] ret = new StackTraceElement[classNames.length];
+    for (int i = 0; i < ret.length; i++) {
+      String simpleName = classNames[i].substring(classNames[i].lastIndexOf('.') + 1);
+      ret[i] = new StackTraceElement(classNames[i], "m", simpleName + ".java", 1);
+    }
+    return ret;
+  }
+
+  private static String printStackTrace(Throwable e) {
+    StringWriter sw = new StringWriter();
+    e.printStackTrace(new PrintWriter(sw));
+    String s = sw.toString();
+    return s.substring(0, s.length() - NL.length());
+  }
+}
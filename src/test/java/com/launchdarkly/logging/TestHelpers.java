@@ -37,4 +37,22 @@ public class TestHelpers implements TestValues {
       break;
     }
   }
+
+  public static void writeThrowableMessage(LDLogger logger, LDLogLevel level, Throwable throwable,
+      String format, Object... params) {
+    switch (level) {
+    case DEBUG:
+      logger.debug(throwable, format, params);
+      break;
+    case INFO:
+      logger.info(throwable, format, params);
+      break;
+    case WARN:
+      logger.warn(throwable, format, params);
+      break;
+    default:
+      logger.error(throwable, format, params);
+      break;
+    }
+  }
 }
@@ -0,0 +1,52 @@
+package com.launchdarkly.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A log adapter that, unlike LogCapture, records exceptions that are passed to it separately
+// from the message, as a framework adapter would receive them. Each call is recorded as
+// "LEVEL:text", or "LEVEL:text|exception" if there was an exception. For calls with an
+// exception, the format string is also recorded as it was passed, so that tests can check that
+// already-formatted text is not passed as a format.
+@SuppressWarnings("javadoc")
+public class ThrowableCapture implements LDLogAdapter {
+  public final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+  public final List<String> throwableFormats = Collections.synchronizedList(new ArrayList<String>());
+
+  @Override
+  public Channel newChannel(String name) {
+    return new Channel() {
+      @Override
+      public boolean isEnabled(LDLogLevel level) {
+        return true;
+      }
+
+      @Override
+      public void log(LDLogLevel level, Object message) {
+        calls.add(level + ":" + message);
+      }
+
+      @Override
+      public void log(LDLogLevel level, String format, Object param) {
+        calls.add(level + ":" + SimpleFormat.format(format, param));
+      }
+
+      @Override
+      public void log(LDLogLevel level, String format, Object param1, Object param2) {
+        calls.add(level + ":" + SimpleFormat.format(format, param1, param2));
+      }
+
+      @Override
+      public void log(LDLogLevel level, String format, Object... params) {
+        calls.add(level + ":" + SimpleFormat.format(format, params));
+      }
+
+      @Override
+      public void log(LDLogLevel level, Throwable throwable, String format, Object... params) {
+        calls.add(level + ":" + SimpleFormat.format(format, params) + "|" + throwable);
+        throwableFormats.add(format);
+      }
+    };
+  }
+}
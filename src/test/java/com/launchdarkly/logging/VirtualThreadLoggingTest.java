@@ -0,0 +1,195 @@
+package com.launchdarkly.logging;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Verifies that logging from many virtual threads at once does not pin them to their carrier
+ * threads.
+ * <p>
+ * Pinning shows up in two ways: as Flight Recorder's {@code jdk.VirtualThreadPinned} event,
+ * which is reported when a virtual thread blocks while holding a monitor; or, if threads that
+ * are waiting in {@code Object.wait()} or to enter a monitor occupy all of the carrier
+ * threads, as the tasks never finishing.
+ * <p>
+ * This is skipped in Java versions before 21, which do not have virtual threads, and in
+ * Android. In Java 24 and later, blocking inside a synchronized block no longer pins a
+ * virtual thread, so this test would pass even without our own lock changes.
+ */
+@SuppressWarnings("javadoc")
+public class VirtualThreadLoggingTest extends BaseTest {
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final int PRODUCER_COUNT = 100000;
+  private static final int WARNING_INTERVAL = 1000;
+  private static final int CONSUMER_COUNT = PRODUCER_COUNT / WARNING_INTERVAL;
+
+  @Test
+  public void concurrentLoggingDoesNotPinVirtualThreads() throws Exception {
+    final ExecutorService executor = newVirtualThreadExecutor();
+    Assume.assumeTrue(executor != null && FlightRecording.isAvailable());
+
+    LogCapture capture = Logs.capture();
+    final LogCapture warnings = Logs.capture();
+    PrintStream discard = new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {}
+
+      @Override
+      public void write(byte[] b, int off, int len) {}
+    });
+    // Writing to this stream blocks briefly, like real I/O; if the thread holds a monitor at
+    // that point, Flight Recorder reports it as pinned. Only the scoped loggers use it, since
+    // those write all of their buffered output while holding the LogScope's lock.
+    PrintStream slow = new PrintStream(slowOutput());
+    LDLogAdapter adapter = Logs.toMultiple(
+        capture,
+        Logs.level(warnings, LDLogLevel.WARN),
+        Logs.toStream(discard),
+        Logs.debugRecorder(Logs.toStream(discard), LDLogLevel.WARN, 100)
+        );
+    final LDLogger logger = LDLogger.withAdapter(adapter, "logname");
+    final LDLogger scopedLogger = LDLogger.withAdapter(
+        Logs.toMultiple(adapter, Logs.toStream(slow)), "scoped");
+    final AtomicInteger warningsReceived = new AtomicInteger();
+
+    List<Map<String, Object>> pinnedEvents = FlightRecording.record(pinnedEventSettings(), PINNED_EVENT,
+        new String[] { "stackTrace" }, new Runnable() {
+          @Override
+          public void run() {
+            // The consumers are started first, so they will be waiting for LogCapture's condition
+            for (int i = 0; i < CONSUMER_COUNT; i++) {
+              executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                  warnings.requireMessage(60000);
+                  warningsReceived.incrementAndGet();
+                }
+              });
+            }
+            for (int i = 0; i < PRODUCER_COUNT; i++) {
+              final int n = i;
+              executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                  logger.info("message {}", n);
+                  try (LogScope scope = scopedLogger.beginScope()) {
+                    scope.getLogger().debug("scoped message {}", n);
+                    if (n % WARNING_INTERVAL == 0) {
+                      scope.getLogger().warn("warning {}", n);
+                    }
+                  }
+                }
+              });
+            }
+            executor.shutdown();
+            try {
+              assertThat(executor.awaitTermination(60, TimeUnit.SECONDS), is(true));
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+
+    assertThat(warningsReceived.get(), equalTo(CONSUMER_COUNT));
+    assertThat(capture.getMessages().size(), equalTo(PRODUCER_COUNT + CONSUMER_COUNT * 2));
+    assertThat(pinnedEvents, empty());
+  }
+
+  // A plain PrintStream uses its own lock, which does not pin a virtual thread, but a subclass
+  // of PrintStream synchronizes on itself instead. Our lock cannot prevent that, so blocking
+  // output to such a stream still pins the writing thread until Java 24; see
+  // Logs.StreamLineWriter.
+  @Test
+  public void printStreamSubclassPinsVirtualThreadsBeforeJava24() throws Exception {
+    ExecutorService executor = newVirtualThreadExecutor();
+    Assume.assumeTrue(executor != null && FlightRecording.isAvailable());
+    PrintStream subclass = new PrintStream(slowOutput()) {};
+    assertThat(logAndRecordPinnedEvents(executor, subclass).isEmpty(), is(javaVersion() >= 24));
+  }
+
+  @Test
+  public void plainPrintStreamDoesNotPinVirtualThreads() throws Exception {
+    ExecutorService executor = newVirtualThreadExecutor();
+    Assume.assumeTrue(executor != null && FlightRecording.isAvailable());
+    assertThat(logAndRecordPinnedEvents(executor, new PrintStream(slowOutput())), empty());
+  }
+
+  private static List<Map<String, Object>> logAndRecordPinnedEvents(final ExecutorService executor,
+      PrintStream stream) throws Exception {
+    final LDLogger logger = LDLogger.withAdapter(Logs.toStream(stream), "logname");
+    return FlightRecording.record(pinnedEventSettings(), PINNED_EVENT, new String[] { "stackTrace" },
+        new Runnable() {
+          @Override
+          public void run() {
+            for (int i = 0; i < 10; i++) {
+              final int n = i;
+              executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                  logger.info("message {}", n);
+                }
+              });
+            }
+            executor.shutdown();
+            try {
+              assertThat(executor.awaitTermination(60, TimeUnit.SECONDS), is(true));
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+  }
+
+  private static Map<String, String> pinnedEventSettings() {
+    Map<String, String> settings = new HashMap<>();
+    settings.put(PINNED_EVENT + "#enabled", "true");
+    settings.put(PINNED_EVENT + "#threshold", "0 ns");
+    settings.put(PINNED_EVENT + "#stackTrace", "true");
+    return settings;
+  }
+
+  // Writing to this stream blocks briefly, like real I/O.
+  private static OutputStream slowOutput() {
+    return new OutputStream() {
+      @Override
+      public void write(int b) {}
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  // Only called in Java 21 and later, where this property is just the feature version.
+  private static int javaVersion() {
+    return Integer.parseInt(System.getProperty("java.specification.version"));
+  }
+
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}